@@ -0,0 +1,309 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the work queued by native calls. Every category runs its calls on a pool with a concurrency limit
+ * and a queue bounded by its queue cap, calls are rejected once the queue is full. The wallet lanes, one
+ * thread per wallet, share the "walletLane" category whose queue cap bounds every lane created afterwards.
+ *
+ * Pressure of a category is its queue fill: NORMAL below half, ELEVATED from half and SATURATED from 90%
+ * or after a rejection. The wallet lanes report the level and queue length of the fullest lane. Changes
+ * of the level are reported to the listener.
+ */
+class AdmissionControl {
+
+    static final String LEDGER = "ledger";
+    static final String POOL = "pool";
+    static final String WALLET_LANE = "walletLane";
+
+    private static final Gson gson = new Gson();
+
+    enum Pressure { NORMAL, ELEVATED, SATURATED }
+
+    interface Listener {
+        void onPressureChanged(String category, Pressure pressure, int queued, int queueCap);
+    }
+
+    /**
+     * Rejection of a call beyond the queue cap. Like other non-Indy errors it is rejected with code "0", the
+     * JSON names it IndySdkBusy.
+     */
+    static class BusyException extends Exception {
+        final String category;
+        final int queued;
+        final int queueCap;
+
+        BusyException(String category, int queued, int queueCap) {
+            super("Too many queued " + category + " calls (" + queued + " of " + queueCap + ")");
+            this.category = category;
+            this.queued = queued;
+            this.queueCap = queueCap;
+        }
+
+        String getCode() {
+            return "0";
+        }
+
+        String toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", "IndySdkBusy");
+            json.addProperty("indyCode", 0);
+            json.addProperty("message", getMessage());
+            json.addProperty("category", category);
+            json.addProperty("queued", queued);
+            json.addProperty("queueCap", queueCap);
+            return gson.toJson(json);
+        }
+    }
+
+    private static class Category {
+        final String name;
+        // Null for the wallet lanes, they have an executor per wallet. Replaced when the queue cap changes.
+        volatile ThreadPoolExecutor executor;
+        volatile int queueCap;
+        volatile Pressure pressure = Pressure.NORMAL;
+        long rejected;
+
+        Category(String name, ThreadPoolExecutor executor, int queueCap) {
+            this.name = name;
+            this.executor = executor;
+            this.queueCap = queueCap;
+        }
+    }
+
+    private static class LaneState {
+        final Pressure pressure;
+        final int queued;
+
+        LaneState(Pressure pressure, int queued) {
+            this.pressure = pressure;
+            this.queued = queued;
+        }
+    }
+
+    private final Map<String, Category> categories = new LinkedHashMap<>();
+    // Wallet lanes with queued calls or raised pressure, guarded by the walletLane category
+    private final Map<ThreadPoolExecutor, LaneState> lanes = new HashMap<>();
+    private volatile Listener listener;
+
+    AdmissionControl() {
+        categories.put(LEDGER, new Category(LEDGER, newExecutor(LEDGER, 4, 64), 64));
+        categories.put(POOL, new Category(POOL, newExecutor(POOL, 2, 8), 8));
+        categories.put(WALLET_LANE, new Category(WALLET_LANE, null, 256));
+    }
+
+    private static ThreadPoolExecutor newExecutor(final String name, int concurrency, int queueCap) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCap), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "indy-" + name + "-" + counter.incrementAndGet());
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Creates a wallet lane, a single thread whose queue is bounded by the current wallet lane queue cap.
+     */
+    ThreadPoolExecutor newLane(ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(category(WALLET_LANE).queueCap), threadFactory);
+    }
+
+    /**
+     * Sets the concurrency limit, ignored for the wallet lanes, and the queue cap of a category.
+     */
+    synchronized void configure(String name, int concurrency, int queueCap) {
+        Category category = category(name);
+        ThreadPoolExecutor executor = category.executor;
+        if (executor != null && queueCap > 0 && queueCap != category.queueCap) {
+            // The queue can't be resized, calls already queued still run on the previous pool
+            category.executor = newExecutor(name, concurrency > 0 ? concurrency : executor.getCorePoolSize(), queueCap);
+            executor.shutdown();
+        } else if (executor != null && concurrency > 0) {
+            // Growing has to raise the maximum first, shrinking the core size first
+            if (concurrency > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(concurrency);
+                executor.setCorePoolSize(concurrency);
+            } else {
+                executor.setCorePoolSize(concurrency);
+                executor.setMaximumPoolSize(concurrency);
+            }
+        }
+        if (queueCap > 0) {
+            category.queueCap = queueCap;
+        }
+    }
+
+    void execute(String name, Runnable task) throws BusyException {
+        Category category = category(name);
+        ThreadPoolExecutor executor = category.executor;
+        try {
+            admit(category, executor, task);
+        } catch (BusyException e) {
+            if (executor == category.executor || !executor.isShutdown()) {
+                throw e;
+            }
+            // Raced with a queue cap change
+            admit(category, category.executor, task);
+        }
+    }
+
+    /**
+     * Queues a task on a wallet lane, the lane must be a ThreadPoolExecutor.
+     */
+    void executeOnLane(ThreadPoolExecutor lane, Runnable task) throws BusyException {
+        admit(category(WALLET_LANE), lane, task);
+    }
+
+    private void admit(final Category category, final ThreadPoolExecutor executor, final Runnable task) throws BusyException {
+        // The bounded queue makes the check and the submission one step
+        final int capacity = executor.getQueue().size() + executor.getQueue().remainingCapacity();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        int queued = executor.getQueue().size();
+                        report(category, executor, level(queued, capacity), queued);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                // Not a full queue, e.g. the wallet lane of a closing wallet
+                throw e;
+            }
+            int queued = executor.getQueue().size();
+            synchronized (category) {
+                category.rejected++;
+            }
+            report(category, executor, Pressure.SATURATED, queued);
+            throw new BusyException(category.name, queued, capacity);
+        }
+        int queued = executor.getQueue().size();
+        report(category, executor, level(queued, capacity), queued);
+    }
+
+    /**
+     * Updates the pressure of a category from one of its executors. A wallet lane only counts as one of the
+     * lanes, the category takes the highest level and queue length over all lanes.
+     */
+    private void report(Category category, ThreadPoolExecutor executor, Pressure pressure, int queued) {
+        if (category.executor == null) {
+            synchronized (category) {
+                if (pressure == Pressure.NORMAL && queued == 0) {
+                    lanes.remove(executor);
+                } else {
+                    lanes.put(executor, new LaneState(pressure, queued));
+                }
+                pressure = Pressure.NORMAL;
+                queued = 0;
+                for (LaneState lane : lanes.values()) {
+                    if (lane.pressure.compareTo(pressure) > 0) {
+                        pressure = lane.pressure;
+                    }
+                    queued = Math.max(queued, lane.queued);
+                }
+            }
+        }
+        update(category, pressure, queued);
+    }
+
+    private static Pressure level(int queued, int queueCap) {
+        if (queued >= queueCap * 0.9) {
+            return Pressure.SATURATED;
+        }
+        return queued >= queueCap * 0.5 ? Pressure.ELEVATED : Pressure.NORMAL;
+    }
+
+    private void update(Category category, Pressure pressure, int queued) {
+        synchronized (category) {
+            if (category.pressure == pressure) {
+                return;
+            }
+            category.pressure = pressure;
+        }
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onPressureChanged(category.name, pressure, queued, category.queueCap);
+        }
+    }
+
+    private Category category(String name) {
+        Category category = categories.get(name);
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown call category: " + name);
+        }
+        return category;
+    }
+
+    /**
+     * Returns JSON object keyed by category with pressure, queueCap, rejected and, except for the wallet
+     * lanes, concurrency, active and queued. The wallet lanes have queued of the fullest lane.
+     */
+    String getStats() {
+        JsonObject stats = new JsonObject();
+        for (Category category : categories.values()) {
+            JsonObject json = new JsonObject();
+            json.addProperty("pressure", category.pressure.name());
+            json.addProperty("queueCap", category.queueCap);
+            synchronized (category) {
+                json.addProperty("rejected", category.rejected);
+            }
+            if (category.executor != null) {
+                json.addProperty("concurrency", category.executor.getCorePoolSize());
+                json.addProperty("active", category.executor.getActiveCount());
+                json.addProperty("queued", category.executor.getQueue().size());
+            } else {
+                int queued = 0;
+                synchronized (category) {
+                    for (LaneState lane : lanes.values()) {
+                        queued = Math.max(queued, lane.queued);
+                    }
+                }
+                json.addProperty("queued", queued);
+            }
+            stats.add(category.name, json);
+        }
+        return gson.toJson(stats);
+    }
+}
@@ -0,0 +1,291 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.hyperledger.indy.sdk.anoncreds.Anoncreds;
+import org.hyperledger.indy.sdk.wallet.Wallet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the metadata of credentials stored in a wallet.
+ *
+ * Only identifiers and attribute names are kept, never attribute values. The index of a wallet
+ * is built from a single wallet scan the first time it is needed and afterwards kept current by
+ * the store and delete calls going through the module.
+ */
+class CredentialIndex {
+
+    // Filter keys accepted by prover_get_credentials
+    private static final Set<String> FILTER_KEYS = new HashSet<>(Arrays.asList(
+            "schema_id", "schema_issuer_did", "schema_name", "schema_version", "issuer_did", "cred_def_id"));
+
+    private final Gson gson;
+    private final Map<Integer, Map<String, Entry>> walletIndexes = new ConcurrentHashMap<>();
+
+    CredentialIndex(Gson gson) {
+        this.gson = gson;
+    }
+
+    static class Entry {
+        final String referent;
+        final String schemaId;
+        final String credDefId;
+        final Set<String> attrNames;
+        // Whether both ids have the unqualified shape. Qualified ids, e.g. schema:sov:did:sov:<did>:2:<name>:<version>,
+        // are compared by libindy in ways the index doesn't reproduce, their filter values are unknown.
+        final boolean unqualified;
+
+        Entry(String referent, String schemaId, String credDefId, Set<String> attrNames) {
+            this.referent = referent;
+            this.schemaId = schemaId;
+            this.credDefId = credDefId;
+            this.attrNames = attrNames;
+            this.unqualified = isUnqualifiedSchemaId(schemaId) && isUnqualifiedCredDefId(credDefId);
+        }
+
+        // Schema id format: <issuer_did>:2:<name>:<version>
+        static boolean isUnqualifiedSchemaId(String schemaId) {
+            String[] parts = schemaId.split(":", -1);
+            return parts.length == 4 && parts[1].equals("2");
+        }
+
+        // Cred def id format: <issuer_did>:3:<signature_type>:<schema_ref>:<tag>, the schema ref can be a schema id
+        static boolean isUnqualifiedCredDefId(String credDefId) {
+            String[] parts = credDefId.split(":", -1);
+            return parts.length >= 5 && parts[1].equals("3") && !parts[0].equals("creddef");
+        }
+
+        String schemaPart(int index) {
+            return schemaId.split(":")[index];
+        }
+
+        String issuerDid() {
+            return credDefId.split(":")[0];
+        }
+
+        /**
+         * Returns the value of the filter key, null when it's unknown.
+         */
+        String get(String filterKey) {
+            if (!unqualified) {
+                return null;
+            }
+            switch (filterKey) {
+                case "schema_id":
+                    return schemaId;
+                case "schema_issuer_did":
+                    return schemaPart(0);
+                case "schema_name":
+                    return schemaPart(2);
+                case "schema_version":
+                    return schemaPart(3);
+                case "issuer_did":
+                    return issuerDid();
+                case "cred_def_id":
+                    return credDefId;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    boolean isBuilt(int walletHandle) {
+        return walletIndexes.containsKey(walletHandle);
+    }
+
+    private Map<String, Entry> index(int walletHandle, Wallet wallet) throws Exception {
+        Map<String, Entry> index = walletIndexes.get(walletHandle);
+        if (index == null) {
+            synchronized (this) {
+                index = walletIndexes.get(walletHandle);
+                if (index == null) {
+                    index = new ConcurrentHashMap<>();
+                    JsonArray credentials = gson.fromJson(scan(wallet), JsonArray.class);
+                    for (JsonElement credential : credentials) {
+                        Entry entry = toEntry(credential.getAsJsonObject());
+                        index.put(entry.referent, entry);
+                    }
+                    walletIndexes.put(walletHandle, index);
+                }
+            }
+        }
+        return index;
+    }
+
+    // Credential infos of all credentials in the wallet
+    String scan(Wallet wallet) throws Exception {
+        return Anoncreds.proverGetCredentials(wallet, "{}").get();
+    }
+
+    private Entry toEntry(JsonObject credentialInfo) {
+        Set<String> attrNames = new HashSet<>();
+        if (credentialInfo.has("attrs") && credentialInfo.get("attrs").isJsonObject()) {
+            for (String name : credentialInfo.getAsJsonObject("attrs").keySet()) {
+                attrNames.add(normalizeAttrName(name));
+            }
+        }
+        return new Entry(
+                credentialInfo.get("referent").getAsString(),
+                credentialInfo.get("schema_id").getAsString(),
+                credentialInfo.get("cred_def_id").getAsString(),
+                attrNames);
+    }
+
+    // libindy matches attribute names case-insensitively and ignoring spaces
+    static String normalizeAttrName(String name) {
+        return name.replace(" ", "").toLowerCase();
+    }
+
+    /**
+     * Adds a freshly stored credential. Does nothing if the index of the wallet was not built yet,
+     * the credential will be picked up by the initial scan.
+     */
+    void onStored(int walletHandle, String credentialInfoJson) {
+        Map<String, Entry> index = walletIndexes.get(walletHandle);
+        if (index != null) {
+            Entry entry = toEntry(gson.fromJson(credentialInfoJson, JsonObject.class));
+            index.put(entry.referent, entry);
+        }
+    }
+
+    void onDeleted(int walletHandle, String credId) {
+        Map<String, Entry> index = walletIndexes.get(walletHandle);
+        if (index != null) {
+            index.remove(credId);
+        }
+    }
+
+    void invalidate(int walletHandle) {
+        walletIndexes.remove(walletHandle);
+    }
+
+    void clear() {
+        walletIndexes.clear();
+    }
+
+    /**
+     * Returns ids of credentials matching prover_get_credentials filter or null when the filter uses keys
+     * the index can't answer, a credential has ids the index can't interpret, or the filter is too broad,
+     * one lookup per credential is slower than a single scan then.
+     */
+    List<String> match(int walletHandle, Wallet wallet, String filterJson) throws Exception {
+        JsonElement parsed = filterJson == null ? null : gson.fromJson(filterJson, JsonElement.class);
+        // A "null" filter is the same as {}
+        if (parsed == null || !parsed.isJsonObject() || parsed.getAsJsonObject().size() == 0) {
+            return null;
+        }
+        JsonObject filter = parsed.getAsJsonObject();
+        for (Map.Entry<String, JsonElement> condition : filter.entrySet()) {
+            if (!FILTER_KEYS.contains(condition.getKey()) || !condition.getValue().isJsonPrimitive()) {
+                return null;
+            }
+        }
+
+        Map<String, Entry> index = index(walletHandle, wallet);
+        List<String> referents = new ArrayList<>();
+        for (Entry entry : index.values()) {
+            if (!entry.unqualified) {
+                return null;
+            }
+            boolean matches = true;
+            for (Map.Entry<String, JsonElement> condition : filter.entrySet()) {
+                if (!condition.getValue().getAsString().equals(entry.get(condition.getKey()))) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                referents.add(entry.referent);
+            }
+        }
+        return referents.size() > index.size() / 2 ? null : referents;
+    }
+
+    /**
+     * Tells whether any stored credential can possibly satisfy a proof request item. Only simple
+     * restrictions are evaluated, anything else is treated as a possible match.
+     */
+    boolean mayMatch(int walletHandle, Wallet wallet, JsonObject requestedItem) throws Exception {
+        Set<String> names = new HashSet<>();
+        if (requestedItem.has("name")) {
+            names.add(normalizeAttrName(requestedItem.get("name").getAsString()));
+        }
+        if (requestedItem.has("names") && requestedItem.get("names").isJsonArray()) {
+            for (JsonElement name : requestedItem.getAsJsonArray("names")) {
+                names.add(normalizeAttrName(name.getAsString()));
+            }
+        }
+
+        List<JsonObject> restrictions = new ArrayList<>();
+        JsonElement restrictionsElement = requestedItem.get("restrictions");
+        if (restrictionsElement != null && restrictionsElement.isJsonArray()) {
+            for (JsonElement restriction : restrictionsElement.getAsJsonArray()) {
+                if (!restriction.isJsonObject()) {
+                    return true;
+                }
+                restrictions.add(restriction.getAsJsonObject());
+            }
+        } else if (restrictionsElement != null && restrictionsElement.isJsonObject()) {
+            restrictions.add(restrictionsElement.getAsJsonObject());
+        } else if (restrictionsElement != null && !restrictionsElement.isJsonNull()) {
+            return true;
+        }
+
+        for (Entry entry : index(walletHandle, wallet).values()) {
+            if (!entry.attrNames.containsAll(names)) {
+                continue;
+            }
+            if (restrictions.isEmpty()) {
+                return true;
+            }
+            for (JsonObject restriction : restrictions) {
+                if (satisfies(entry, restriction)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean satisfies(Entry entry, JsonObject restriction) {
+        for (Map.Entry<String, JsonElement> condition : restriction.entrySet()) {
+            String key = condition.getKey();
+            if (!FILTER_KEYS.contains(key) || !condition.getValue().isJsonPrimitive()) {
+                // Operators and attribute value restrictions are left to libindy
+                return true;
+            }
+            String value = entry.get(key);
+            // Unknown values may match
+            if (value != null && !condition.getValue().getAsString().equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pages over a snapshot of the last DID listing of each wallet. The snapshot is reused until a DID of the
+ * wallet is created or its metadata changes, cursors stay valid until the next snapshot is taken.
+ *
+ * Modification times of DIDs are tracked from the calls made through the module since the wallet was
+ * opened, they are not persisted.
+ */
+class DidListing {
+
+    private final Gson gson = new Gson();
+    private final Map<Integer, Snapshot> snapshots = new HashMap<>();
+    private final Map<Integer, Map<String, Long>> modifiedAt = new HashMap<>();
+    private long snapshotCounter = 0;
+
+    static class Snapshot {
+        final long id;
+        // Sorted by DID
+        final List<JsonObject> dids;
+        boolean stale = false;
+
+        Snapshot(long id, List<JsonObject> dids) {
+            this.id = id;
+            this.dids = dids;
+        }
+    }
+
+    synchronized void touch(int walletHandle, String did) {
+        Map<String, Long> times = modifiedAt.get(walletHandle);
+        if (times == null) {
+            times = new HashMap<>();
+            modifiedAt.put(walletHandle, times);
+        }
+        times.put(did, System.currentTimeMillis());
+        Snapshot snapshot = snapshots.get(walletHandle);
+        if (snapshot != null) {
+            snapshot.stale = true;
+        }
+    }
+
+    synchronized void invalidate(int walletHandle) {
+        snapshots.remove(walletHandle);
+        modifiedAt.remove(walletHandle);
+    }
+
+    /**
+     * Returns the snapshot of the wallet unless DIDs changed since it was taken.
+     */
+    synchronized Snapshot current(int walletHandle) {
+        Snapshot snapshot = snapshots.get(walletHandle);
+        return snapshot == null || snapshot.stale ? null : snapshot;
+    }
+
+    synchronized Snapshot get(int walletHandle, long snapshotId) {
+        Snapshot snapshot = snapshots.get(walletHandle);
+        if (snapshot == null || snapshot.id != snapshotId) {
+            throw new IllegalArgumentException("Cursor expired, DIDs were listed again since");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Takes a snapshot of a getListMyDidsWithMeta result.
+     */
+    Snapshot store(int walletHandle, String listJson) {
+        List<JsonObject> dids = new ArrayList<>();
+        for (JsonElement element : gson.fromJson(listJson, JsonArray.class)) {
+            dids.add(element.getAsJsonObject());
+        }
+        Collections.sort(dids, new Comparator<JsonObject>() {
+            @Override
+            public int compare(JsonObject a, JsonObject b) {
+                return a.get("did").getAsString().compareTo(b.get("did").getAsString());
+            }
+        });
+        synchronized (this) {
+            Snapshot snapshot = new Snapshot(++snapshotCounter, dids);
+            snapshots.put(walletHandle, snapshot);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Returns JSON {"items", "nextCursor", "total"} with up to limit DIDs from offset on. With changedSince
+     * set only DIDs modified since then are returned, and DIDs of unknown modification time.
+     *
+     * Modification time is the later of the tracked time and the number in member timestampField of the
+     * metadata, if it's a JSON object.
+     */
+    String page(int walletHandle, Snapshot snapshot, int offset, int limit, long changedSince, String timestampField) {
+        Map<String, Long> times;
+        synchronized (this) {
+            times = modifiedAt.containsKey(walletHandle)
+                    ? new HashMap<>(modifiedAt.get(walletHandle))
+                    : new HashMap<String, Long>();
+        }
+
+        JsonArray items = new JsonArray();
+        int index = offset;
+        while (index < snapshot.dids.size() && items.size() < limit) {
+            JsonObject did = snapshot.dids.get(index++);
+            Long modified = modifiedAt(did, times, timestampField);
+            if (changedSince <= 0 || modified == null || modified >= changedSince) {
+                items.add(did);
+            }
+        }
+
+        JsonObject page = new JsonObject();
+        page.add("items", items);
+        page.addProperty("nextCursor", index < snapshot.dids.size() ? snapshot.id + ":" + index : null);
+        page.addProperty("total", snapshot.dids.size());
+        return gson.toJson(page);
+    }
+
+    private Long modifiedAt(JsonObject did, Map<String, Long> times, String timestampField) {
+        Long modified = times.get(did.get("did").getAsString());
+        JsonElement metadata = did.get("metadata");
+        if (timestampField == null || metadata == null || !metadata.isJsonPrimitive()) {
+            return modified;
+        }
+        try {
+            JsonElement parsed = gson.fromJson(metadata.getAsString(), JsonElement.class);
+            if (parsed != null && parsed.isJsonObject() && parsed.getAsJsonObject().has(timestampField)) {
+                long timestamp = parsed.getAsJsonObject().get(timestampField).getAsLong();
+                return modified == null ? timestamp : Math.max(modified, timestamp);
+            }
+        } catch (RuntimeException e) {
+            // Metadata is not JSON, only the tracked time counts
+        }
+        return modified;
+    }
+}
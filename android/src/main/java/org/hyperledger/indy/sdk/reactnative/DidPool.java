@@ -0,0 +1,85 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.hyperledger.indy.sdk.did.Did;
+import org.hyperledger.indy.sdk.did.DidResults;
+import org.hyperledger.indy.sdk.non_secrets.WalletRecord;
+import org.hyperledger.indy.sdk.non_secrets.WalletSearch;
+import org.hyperledger.indy.sdk.wallet.Wallet;
+
+/**
+ * DIDs created ahead of use. Each pooled DID is stored as usual and has a wallet record of RECORD_TYPE with
+ * the DID as id, the verkey as value and tag state "unused". Claiming a DID deletes its record.
+ *
+ * Calls for one wallet must not run concurrently, the module runs them on the wallet lane.
+ */
+class DidPool {
+
+    static final String RECORD_TYPE = "IndySdkPooledDid";
+    private static final String UNUSED_QUERY = "{\"state\":\"unused\"}";
+
+    private static final Gson gson = new Gson();
+
+    /**
+     * Creates a DID, adds it to the pool and returns it.
+     */
+    static String add(Wallet wallet) throws Exception {
+        DidResults.CreateAndStoreMyDidResult created = Did.createAndStoreMyDid(wallet, "{}").get();
+        WalletRecord.add(wallet, RECORD_TYPE, created.getDid(), created.getVerkey(), UNUSED_QUERY).get();
+        return created.getDid();
+    }
+
+    /**
+     * Removes an unused DID from the pool and returns {did, verkey}, null when the pool is empty.
+     */
+    static String[] claim(Wallet wallet) throws Exception {
+        JsonArray records = unused(wallet, 1, false).getAsJsonArray("records");
+        if (records == null || records.size() == 0) {
+            return null;
+        }
+        JsonObject record = records.get(0).getAsJsonObject();
+        String did = record.get("id").getAsString();
+        WalletRecord.delete(wallet, RECORD_TYPE, did).get();
+        return new String[]{did, record.get("value").getAsString()};
+    }
+
+    static int unusedCount(Wallet wallet) throws Exception {
+        JsonElement totalCount = unused(wallet, 0, true).get("totalCount");
+        return totalCount == null || totalCount.isJsonNull() ? 0 : totalCount.getAsInt();
+    }
+
+    private static JsonObject unused(Wallet wallet, int count, boolean totalCount) throws Exception {
+        JsonObject options = new JsonObject();
+        options.addProperty("retrieveRecords", count > 0);
+        options.addProperty("retrieveTotalCount", totalCount);
+        options.addProperty("retrieveType", false);
+        options.addProperty("retrieveValue", true);
+        options.addProperty("retrieveTags", false);
+        WalletSearch search = WalletSearch.open(wallet, RECORD_TYPE, UNUSED_QUERY, gson.toJson(options)).get();
+        try {
+            return gson.fromJson(WalletSearch.searchFetchNextRecords(wallet, search, Math.max(count, 1)).get(), JsonObject.class);
+        } finally {
+            WalletSearch.closeSearch(search).get();
+        }
+    }
+}
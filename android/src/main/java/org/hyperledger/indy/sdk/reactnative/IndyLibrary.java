@@ -0,0 +1,92 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import android.util.Log;
+
+import org.hyperledger.indy.sdk.LibIndy;
+
+/**
+ * Loads libindy and its dependencies on first use instead of at module creation.
+ *
+ * The module must not touch any Indy wrapper class before ensureLoaded() was called, otherwise the
+ * load happens implicitly and is not accounted for. That includes LibIndy itself: its static initializer
+ * loads libindy and sets the logger of the wrapper.
+ */
+class IndyLibrary {
+
+    private static final String TAG = "IndySdk";
+
+    private static volatile boolean loaded = false;
+    private static String loadedBy;
+    private static double loadDurationMs;
+    private static String loadError;
+
+    /**
+     * Loads the library if it's not loaded yet. A failure is only logged, the Indy call that follows
+     * fails the same way as it would without this call.
+     */
+    static void ensureLoaded() {
+        if (!loaded) {
+            load("firstUse");
+        }
+    }
+
+    static void preload() {
+        if (!loaded) {
+            load("preload");
+        }
+    }
+
+    private static synchronized void load(String trigger) {
+        if (loaded) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            // Before LibIndy is referenced, libindy takes the first logger set only
+            NativeLog.installIfRequested();
+            if (!LibIndy.isInitialized()) {
+                // Static initialization failed, retry to surface the error
+                LibIndy.init();
+            }
+            loadError = null;
+        } catch (Throwable e) {
+            Log.e(TAG, "Failed to load libindy", e);
+            loadError = e.toString();
+        }
+        loadDurationMs = (System.nanoTime() - start) / 1e6;
+        loadedBy = trigger;
+        loaded = loadError == null;
+    }
+
+    static boolean isLoaded() {
+        return loaded;
+    }
+
+    static synchronized String getLoadedBy() {
+        return loadedBy;
+    }
+
+    static synchronized double getLoadDurationMs() {
+        return loadDurationMs;
+    }
+
+    static synchronized String getLoadError() {
+        return loadError;
+    }
+}
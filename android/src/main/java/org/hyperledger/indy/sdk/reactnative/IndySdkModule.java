@@ -17,8 +17,12 @@
 package org.hyperledger.indy.sdk.reactnative;
 
 import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
@@ -26,13 +30,19 @@ import com.facebook.react.bridge.ReactMethod;
 
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeArray;
+import com.facebook.react.bridge.WritableNativeMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 
 import org.hyperledger.indy.sdk.IndyException;
 import org.hyperledger.indy.sdk.ErrorCode;
+import org.hyperledger.indy.sdk.LibIndy;
 import org.hyperledger.indy.sdk.anoncreds.Anoncreds;
 import org.hyperledger.indy.sdk.anoncreds.AnoncredsResults;
 import org.hyperledger.indy.sdk.anoncreds.AnoncredsResults.IssuerCreateSchemaResult;
@@ -52,15 +62,42 @@ import org.hyperledger.indy.sdk.pool.Pool;
 import org.hyperledger.indy.sdk.wallet.Wallet;
 import org.hyperledger.indy.sdk.anoncreds.CredentialsSearchForProofReq;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @TargetApi(24)
 public class IndySdkModule extends ReactContextBaseJavaModule {
 
     private static final String TAG = "IndySdk";
+    // Gson is thread safe, one instance serves all calls including the error path
+    private static final Gson gson = new Gson();
     private final ReactApplicationContext reactContext;
+    private final JobRunner jobRunner;
 
     private static  Map<Integer, Wallet> walletMap = new ConcurrentHashMap<>();
     private static Map<String, Integer> walletIdToHandleMap = new ConcurrentHashMap<>();
@@ -70,12 +107,116 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     private Map<Integer, CredentialsSearchForProofReq> credentialSearchMap;
     // Java wrapper does not expose credentialSearchHandle
     private int credentialSearchIterator = 0;
+    private static CredentialIndex credentialIndex = new CredentialIndex(gson);
+    private static volatile boolean credentialIndexEnabled = false;
+    // Wallet lookup caches, disabled until configured with a capacity
+    private static LruCache<String> pairwiseCache = new LruCache<>("pairwise", 0, 0);
+    private static LruCache<String> localDidKeyCache = new LruCache<>("keyForLocalDid", 0, 0);
+    private static LruCache<String> didMetadataCache = new LruCache<>("didMetadata", 0, 0);
+    // Pairwise by their verkey per wallet handle, built by the first inbound batch and only touched on the wallet lane.
+    // Their verkeys only change through createPairwise and setPairwiseMetadata here, storeTheirDid and replaceKeys*
+    // aren't exposed on Android. A method added for them must drop the index of the wallet.
+    private static final Map<Integer, Map<String, JsonObject>> pairwiseBySenderKey = new ConcurrentHashMap<>();
+    // keyForDid answers from the ledger can go stale when the verkey is rotated elsewhere
+    private static final long DEFAULT_KEY_FOR_DID_TTL_MILLIS = 5 * 60 * 1000;
+    private static LruCache<String> didKeyCache = new LruCache<>("keyForDid", 0, DEFAULT_KEY_FOR_DID_TTL_MILLIS);
+    // Single threaded lane per wallet for batched work that runs off the native modules thread
+    private static Map<Integer, ThreadPoolExecutor> walletLanes = new ConcurrentHashMap<>();
+    // Opens in progress and last closes by wallet id, open count by wallet handle; guarded by walletOpenings
+    private static final Map<String, CompletableFuture<Integer>> walletOpenings = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<Void>> walletClosings = new ConcurrentHashMap<>();
+    private static final Map<Integer, Integer> walletRefCounts = new ConcurrentHashMap<>();
+    private static final ExecutorService walletOpenExecutor = Executors.newCachedThreadPool(namedThreadFactory("openWallet"));
+    // Calls using a wallet off its lane, the close waits for them
+    private static final WalletUsage walletUsage = new WalletUsage();
+    private WalletKeyCache walletKeyCache;
+    // Error codes whose rejections leave out the SDK backtrace, empty by default and set with setBacktraceSkippedErrorCodes
+    private static Set<Integer> backtraceSkippedCodes = new CopyOnWriteArraySet<>();
+    // Every ledger submission goes through it, so it is initialized before its users
+    private static final LedgerTraffic ledgerTraffic = new LedgerTraffic();
+    private static TaaCache taaCache = new TaaCache(ledgerTraffic);
+    private static RevocationPrefetcher revocationPrefetcher = new RevocationPrefetcher(ledgerTraffic);
+    // Node latency trackers by pool config name, present while latency ordering is enabled for the pool
+    private static Map<String, NodeLatencyTracker> nodeLatencyTrackers = new ConcurrentHashMap<>();
+    // Node the reads of an open pool are credited to by pool handle, see NodeLatencyTracker.creditedNode
+    private static final Map<Integer, String> nodeLatencyCreditedNodes = new ConcurrentHashMap<>();
+    // Measurements are persisted at most this often per pool config, configs with a save scheduled
+    private static final long NODE_LATENCY_SAVE_DELAY_MILLIS = 30 * 1000;
+    private static final Set<String> nodeLatencySaves = ConcurrentHashMap.newKeySet();
+    // Pool opens in progress by config name, guarded by itself
+    private static final Map<String, CompletableFuture<Integer>> poolOpenings = new ConcurrentHashMap<>();
+    private static final ExecutorService poolOpenExecutor = Executors.newCachedThreadPool(namedThreadFactory("openPoolLedger"));
+    private static final Map<String, ScheduledFuture<?>> poolKeepAlives = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService poolKeepAliveExecutor = Executors.newSingleThreadScheduledExecutor(namedThreadFactory("poolKeepAlive"));
+    private static volatile boolean hostResumed = true;
+    // Issuing with a revocation registry allocates the next registry index in the wallet, one issuance per registry at a time.
+    // Locks by wallet handle, then registry id, dropped when the wallet is closed. The close waits for the
+    // issuances of the wallet, so a lock isn't replaced while an issuance holds it.
+    private static final Map<Integer, Map<String, Object>> revocationRegistryLocks = new ConcurrentHashMap<>();
+    private static final ExecutorService issuanceExecutor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), namedThreadFactory("issueCredential"));
+    private static final DidListing didListing = new DidListing();
+    private static final PayloadStats payloadStats = new PayloadStats();
+    // Number of unused pre-created DIDs to keep by wallet handle, wallets without entry have no DID pool
+    private static Map<Integer, Integer> didPoolSizes = new ConcurrentHashMap<>();
+    private static final Set<Integer> didPoolRefills = ConcurrentHashMap.newKeySet();
+    // Bounds the queues of the ledger and pool calls and of the wallet lanes
+    private static final AdmissionControl admission = new AdmissionControl();
 
 
     public IndySdkModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
         this.credentialSearchMap = new ConcurrentHashMap<>();
+        admission.setListener(new AdmissionControl.Listener() {
+            @Override
+            public void onPressureChanged(String category, AdmissionControl.Pressure pressure, int queued, int queueCap) {
+                WritableMap event = Arguments.createMap();
+                event.putString("category", category);
+                event.putString("pressure", pressure.name());
+                event.putInt("queued", queued);
+                event.putInt("queueCap", queueCap);
+                emitEvent("IndySdkPressure", event);
+            }
+        });
+        payloadStats.setListener(new PayloadStats.Listener() {
+            @Override
+            public void onLargeTransfer(String tag, String direction, long size, long threshold) {
+                WritableMap event = Arguments.createMap();
+                event.putString("tag", tag);
+                event.putString("direction", direction);
+                event.putDouble("size", size);
+                event.putDouble("threshold", threshold);
+                emitEvent("IndySdkLargeTransfer", event);
+            }
+        });
+        this.jobRunner = new JobRunner(new JobRunner.Listener() {
+            @Override
+            public void onUpdate(JobRunner.Job job) {
+                WritableMap update = Arguments.createMap();
+                update.putString("jobId", job.id);
+                update.putString("name", job.name);
+                update.putString("state", job.state.name());
+                update.putDouble("elapsedMs", job.elapsedMillis());
+                emitEvent("IndySdkJobUpdate", update);
+            }
+        });
+        reactContext.addLifecycleEventListener(new LifecycleEventListener() {
+            @Override
+            public void onHostResume() {
+                hostResumed = true;
+            }
+
+            @Override
+            public void onHostPause() {
+                hostResumed = false;
+            }
+
+            @Override
+            public void onHostDestroy() {
+                hostResumed = false;
+            }
+        });
     }
 
     @Override
@@ -83,10 +224,184 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         return "IndySdk";
     }
 
+    // library
+
+    /**
+     * Loads libindy on a background thread, so the first Indy call doesn't pay for it.
+     */
+    @ReactMethod
+    public void preload(final Promise promise) {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                IndyLibrary.preload();
+                promise.resolve(getNativeLibraryStats());
+            }
+        }, "preloadIndy").start();
+    }
+
+    @ReactMethod
+    public void getNativeLibraryStats(Promise promise) {
+        promise.resolve(getNativeLibraryStats());
+    }
+
+    private WritableMap getNativeLibraryStats() {
+        WritableMap stats = new WritableNativeMap();
+        stats.putBoolean("loaded", IndyLibrary.isLoaded());
+        stats.putString("loadedBy", IndyLibrary.getLoadedBy());
+        stats.putDouble("loadDurationMs", IndyLibrary.getLoadDurationMs());
+        stats.putString("error", IndyLibrary.getLoadError());
+        return stats;
+    }
+
+    // runtime
+
+    @ReactMethod
+    public void setRuntimeConfig(String configJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            LibIndy.setRuntimeConfig(configJson);
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Sizes libindy crypto thread pool from the cores of the device, leaving one core to the UI and
+     * JS threads, and resolves the applied config.
+     */
+    @ReactMethod
+    public void autoTuneRuntimeConfig(boolean collectBacktrace, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            int cores = Runtime.getRuntime().availableProcessors();
+            JsonObject config = new JsonObject();
+            config.addProperty("crypto_thread_pool_size", Math.max(1, Math.min(cores - 1, 8)));
+            config.addProperty("collect_backtrace", collectBacktrace);
+            String configJson = config.toString();
+            LibIndy.setRuntimeConfig(configJson);
+            promise.resolve(configJson);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Sets Indy error codes whose rejections leave out the SDK backtrace. Only its serialization is skipped,
+     * libindy still collects the backtrace unless collect_backtrace is turned off in the runtime config.
+     */
+    @ReactMethod
+    public void setBacktraceSkippedErrorCodes(ReadableArray codes, Promise promise) {
+        Set<Integer> skippedCodes = new HashSet<>();
+        for (int i = 0; i < codes.size(); i++) {
+            skippedCodes.add(codes.getInt(i));
+        }
+        backtraceSkippedCodes = new CopyOnWriteArraySet<>(skippedCodes);
+        promise.resolve(null);
+    }
+
+    /**
+     * Captures libindy log entries into a ring of capacity entries. levelsJson maps module path prefixes to
+     * the maximum level captured, e.g. {"": "warn", "indy::services::pool": "debug"}. Has to be called before
+     * the first Indy call, resolves false when libindy was loaded without capture already.
+     */
+    @ReactMethod
+    public void enableNativeLogCapture(int capacity, String levelsJson, Promise promise) {
+        try {
+            promise.resolve(NativeLog.request(capacity, nativeLogLevels(levelsJson)));
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    @ReactMethod
+    public void setNativeLogLevels(String levelsJson, Promise promise) {
+        try {
+            NativeLog.setLevels(nativeLogLevels(levelsJson));
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Resolves JSON array of up to maxEntries recent libindy log entries, oldest first.
+     */
+    @ReactMethod
+    public void dumpNativeLog(int maxEntries, Promise promise) {
+        promise.resolve(NativeLog.dump(maxEntries));
+    }
+
+    private static Map<String, String> nativeLogLevels(String levelsJson) {
+        Map<String, String> levels = new HashMap<>();
+        if (levelsJson != null) {
+            JsonObject json = gson.fromJson(levelsJson, JsonObject.class);
+            for (String prefix : json.keySet()) {
+                levels.put(prefix, json.get(prefix).getAsString());
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * Sets the concurrency limit and queue cap of a call category: ledger, pool or walletLane (queue cap per
+     * wallet, one call at a time, applies to wallets opened afterwards). Calls beyond the cap are rejected with
+     * code "0" and an error named IndySdkBusy, see AdmissionControl.BusyException.
+     */
+    @ReactMethod
+    public void configureAdmission(String category, int concurrency, int queueCap, Promise promise) {
+        try {
+            admission.configure(category, concurrency, queueCap);
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Resolves JSON object keyed by call category with its pressure level, queue fill and rejections.
+     * Level changes are also emitted as IndySdkPressure events.
+     */
+    @ReactMethod
+    public void getAdmissionStats(Promise promise) {
+        promise.resolve(admission.getStats());
+    }
+
+    /**
+     * Sets the size above which a single argument or result transfer emits an IndySdkLargeTransfer event,
+     * 0 turns the events off.
+     */
+    @ReactMethod
+    public void setPayloadWarningThreshold(double threshold, Promise promise) {
+        payloadStats.setWarningThreshold((long) threshold);
+        promise.resolve(null);
+    }
+
+    /**
+     * Resolves JSON {"warningThreshold", "tags"} with size histograms of arguments and results per call site.
+     */
+    @ReactMethod
+    public void getPayloadStats(Promise promise) {
+        promise.resolve(payloadStats.getStats());
+    }
+
+    @ReactMethod
+    public void resetPayloadStats(Promise promise) {
+        payloadStats.reset();
+        promise.resolve(null);
+    }
+
     // wallet
 
     @ReactMethod
     public void createWallet(String configJson, String credentialsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet.createWallet(configJson, credentialsJson).get();
             promise.resolve(null);
@@ -97,52 +412,287 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    public void openWallet(String configJson, String credentialsJson, Promise promise) {
-        // Retrieve wallet id
-        Gson gson = new Gson();
-        JsonObject config = gson.fromJson(configJson, JsonObject.class);
-        String walletId = config.get("id").getAsString();
+    public void openWallet(final String configJson, final String credentialsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            // Retrieve wallet id
+            JsonObject config = gson.fromJson(configJson, JsonObject.class);
+            String walletId = config.get("id").getAsString();
+
+            openWalletShared(walletId, new Callable<Wallet>() {
+                @Override
+                public Wallet call() throws Exception {
+                    return Wallet.openWallet(configJson, credentialsJson).get();
+                }
+            }, promise);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Opens a wallet once per wallet id. Callers opening an id that is already open or being opened share the
+     * same handle, every successful open has to be balanced by closeWallet.
+     */
+    private void openWalletShared(final String walletId, final Callable<Wallet> opener, final Promise promise) {
+        CompletableFuture<Integer> opening;
+        synchronized (walletOpenings) {
+            Integer openHandle = walletIdToHandleMap.get(walletId);
+            if (openHandle != null) {
+                walletRefCounts.put(openHandle, walletRefCounts.get(openHandle) + 1);
+                promise.resolve(openHandle);
+                return;
+            }
+
+            opening = walletOpenings.get(walletId);
+            if (opening == null) {
+                // Opening right after the last close has to wait until the native wallet is really closed
+                CompletableFuture<Void> closing = walletClosings.get(walletId);
+                if (closing == null) {
+                    closing = CompletableFuture.completedFuture(null);
+                }
+                opening = closing.handleAsync(new BiFunction<Void, Throwable, Integer>() {
+                    @Override
+                    public Integer apply(Void ignored, Throwable closeError) {
+                        try {
+                            Wallet wallet = opener.call();
+                            synchronized (walletOpenings) {
+                                walletMap.put(wallet.getWalletHandle(), wallet);
+                                walletLanes.put(wallet.getWalletHandle(), newWalletLane(wallet.getWalletHandle()));
+                                walletIdToHandleMap.put(walletId, wallet.getWalletHandle());
+                                walletRefCounts.put(wallet.getWalletHandle(), 0);
+                                walletOpenings.remove(walletId);
+                            }
+                            return wallet.getWalletHandle();
+                        } catch (Exception e) {
+                            synchronized (walletOpenings) {
+                                walletOpenings.remove(walletId);
+                            }
+                            throw new CompletionException(e);
+                        }
+                    }
+                }, walletOpenExecutor);
+                walletOpenings.put(walletId, opening);
+            }
+        }
+
+        opening.whenComplete(new BiConsumer<Integer, Throwable>() {
+            @Override
+            public void accept(Integer walletHandle, Throwable error) {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(cause);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), cause);
+                    return;
+                }
+                synchronized (walletOpenings) {
+                    walletRefCounts.put(walletHandle, walletRefCounts.get(walletHandle) + 1);
+                }
+                promise.resolve(walletHandle);
+            }
+        });
+    }
 
-        // If wallet is already opened, return open wallet
-        if (walletIdToHandleMap.containsKey(walletId)) {
-            promise.resolve(walletIdToHandleMap.get(walletId));
+    private synchronized WalletKeyCache getWalletKeyCache() {
+        if (walletKeyCache == null) {
+            walletKeyCache = new WalletKeyCache(reactContext);
         }
+        return walletKeyCache;
+    }
+
+    private static String rawKeyCredentials(JsonObject credentials, String rawKey) {
+        JsonObject rawCredentials = credentials.deepCopy();
+        rawCredentials.remove("rekey");
+        rawCredentials.remove("rekey_derivation_method");
+        rawCredentials.addProperty("key", rawKey);
+        rawCredentials.addProperty("key_derivation_method", "RAW");
+        return rawCredentials.toString();
+    }
+
+    private static String rekeyToRawCredentials(JsonObject credentials, String rawKey) {
+        JsonObject rekeyCredentials = credentials.deepCopy();
+        rekeyCredentials.addProperty("rekey", rawKey);
+        rekeyCredentials.addProperty("rekey_derivation_method", "RAW");
+        return rekeyCredentials.toString();
+    }
 
+    /**
+     * Opens a wallet with a RAW key kept wrapped by the Android Keystore instead of deriving the key from the
+     * passphrase on every open.
+     *
+     * On the first call the wallet is opened with the passphrase and rekeyed to a generated RAW key. Later
+     * calls skip the passphrase key derivation. Once enabled the wallet can't be opened by openWallet with the
+     * passphrase until disableCachedWalletKey is called.
+     *
+     * When the keystore key is lost before the rekey completed, the wallet is opened with the passphrase and
+     * rekeyed to a fresh RAW key. Once the wallet was rekeyed a lost keystore key rejects the open and the
+     * wallet has to be restored from an export. Other keystore failures reject without touching the cached key.
+     */
+    @ReactMethod
+    public void openWalletWithCachedKey(final String configJson, String credentialsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
-            Wallet wallet = Wallet.openWallet(configJson, credentialsJson).get();
-            walletIdToHandleMap.put(walletId, wallet.getWalletHandle());
-            walletMap.put(wallet.getWalletHandle(), wallet);
-            promise.resolve(wallet.getWalletHandle());
+            final String walletId = gson.fromJson(configJson, JsonObject.class).get("id").getAsString();
+            final WalletKeyCache.WalletAccess<Wallet> access = cachedKeyWalletAccess(configJson, credentialsJson);
+
+            openWalletShared(walletId, new Callable<Wallet>() {
+                @Override
+                public Wallet call() throws Exception {
+                    return getWalletKeyCache().open(walletId, access);
+                }
+            }, promise);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
             promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
         }
     }
 
+    /**
+     * Rekeys a closed wallet opened through openWalletWithCachedKey back to its passphrase and forgets the
+     * cached RAW key.
+     */
     @ReactMethod
-    public void closeWallet(int walletHandle, Promise promise) {
+    public void disableCachedWalletKey(String configJson, String credentialsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
-            Wallet wallet = walletMap.get(walletHandle);
-            wallet.closeWallet().get();
-            walletMap.remove(walletHandle);
+            String walletId = gson.fromJson(configJson, JsonObject.class).get("id").getAsString();
+            getWalletKeyCache().disable(walletId, cachedKeyWalletAccess(configJson, credentialsJson));
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    private static WalletKeyCache.WalletAccess<Wallet> cachedKeyWalletAccess(final String configJson, String credentialsJson) {
+        final JsonObject credentials = gson.fromJson(credentialsJson, JsonObject.class);
+        return new WalletKeyCache.WalletAccess<Wallet>() {
+            @Override
+            public Wallet openWithRawKey(String rawKey) throws Exception {
+                return Wallet.openWallet(configJson, rawKeyCredentials(credentials, rawKey)).get();
+            }
+
+            @Override
+            public Wallet openWithPassphrase(String rekeyTo) throws Exception {
+                return Wallet.openWallet(configJson, rekeyToRawCredentials(credentials, rekeyTo)).get();
+            }
+
+            @Override
+            public void rekeyToPassphrase(String rawKey) throws Exception {
+                JsonObject rekeyCredentials = gson.fromJson(rawKeyCredentials(credentials, rawKey), JsonObject.class);
+                rekeyCredentials.addProperty("rekey", credentials.get("key").getAsString());
+                rekeyCredentials.addProperty("rekey_derivation_method", credentials.has("key_derivation_method")
+                        ? credentials.get("key_derivation_method").getAsString()
+                        : "ARGON2I_MOD");
+                Wallet wallet = Wallet.openWallet(configJson, rekeyCredentials.toString()).get();
+                wallet.closeWallet().get();
+            }
+
+            @Override
+            public String generateRawKey() throws Exception {
+                return Wallet.generateWalletKey("{}").get();
+            }
+
+            @Override
+            public boolean isAccessFailure(Exception e) {
+                return indyErrorCode(e) == ErrorCode.WalletAccessFailed.value();
+            }
+        };
+    }
+
+    /**
+     * Releases one reference to the wallet. The native wallet is closed when the last reference is released,
+     * after the work already queued on its wallet lane has finished.
+     */
+    @ReactMethod
+    public void closeWallet(final int walletHandle, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        final String walletId;
+        final CompletableFuture<Void> closing = new CompletableFuture<>();
+        synchronized (walletOpenings) {
+            Integer refCount = walletRefCounts.get(walletHandle);
+            if (refCount != null && refCount > 1) {
+                walletRefCounts.put(walletHandle, refCount - 1);
+                promise.resolve(null);
+                return;
+            }
+            walletRefCounts.remove(walletHandle);
 
             // Remove wallet id mapping
+            String closedWalletId = null;
             for (Map.Entry<String, Integer> entry : walletIdToHandleMap.entrySet()) {
                 if (entry.getValue().equals(walletHandle)) {
-                    walletIdToHandleMap.remove(entry.getKey());
+                    closedWalletId = entry.getKey();
+                    walletIdToHandleMap.remove(closedWalletId);
+                    walletClosings.put(closedWalletId, closing);
                     break;
                 }
             }
+            walletId = closedWalletId;
+        }
 
-            promise.resolve(null);
-        } catch (Exception e) {
+        final ExecutorService lane = walletLanes.remove(walletHandle);
+        if (lane == null) {
+            Exception e = new IllegalStateException("Wallet not open: " + walletHandle);
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
             promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+            return;
+        }
+        didPoolSizes.remove(walletHandle);
+        didListing.invalidate(walletHandle);
+        walletUsage.closing(walletHandle);
+        final Runnable close = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Jobs, ledger calls and issuances still using the wallet finish first
+                    walletUsage.awaitIdle(walletHandle);
+                    Wallet wallet = walletMap.get(walletHandle);
+                    wallet.closeWallet().get();
+                    walletMap.remove(walletHandle);
+                    revocationRegistryLocks.remove(walletHandle);
+                    pairwiseBySenderKey.remove(walletHandle);
+                    credentialIndex.invalidate(walletHandle);
+                    for (LruCache<String> cache : walletCaches()) {
+                        cache.invalidate(walletHandle);
+                    }
+                    promise.resolve(null);
+                } catch (Exception e) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                } finally {
+                    walletUsage.closed(walletHandle);
+                    if (walletId != null) {
+                        walletClosings.remove(walletId, closing);
+                    }
+                    closing.complete(null);
+                }
+            }
+        };
+        try {
+            lane.execute(close);
+            lane.shutdown();
+        } catch (RejectedExecutionException e) {
+            // The lane queue is full, close once the queued calls have run
+            lane.shutdown();
+            walletOpenExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        lane.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                    close.run();
+                }
+            });
         }
     }
 
     @ReactMethod
     public void deleteWallet(String configJson, String credentialsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet.deleteWallet(configJson, credentialsJson).get();
             promise.resolve(null);
@@ -154,6 +704,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void exportWallet(int walletHandle, String exportConfig, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             Wallet.exportWallet(wallet, exportConfig).get();
@@ -166,6 +717,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void importWallet(String config, String credentials, String importConfig, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet.importWallet(config, credentials ,importConfig).get();
             promise.resolve(null);
@@ -175,10 +727,108 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 
+    // jobs
+
+    /**
+     * Runs exportWallet as a job, resolves the job id right away. Job state and elapsed time are emitted as
+     * IndySdkJobUpdate events.
+     */
+    @ReactMethod
+    public void submitExportWalletJob(final int walletHandle, final String exportConfig, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        promise.resolve(jobRunner.submit("exportWallet", new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                walletUsage.acquire(walletHandle);
+                try {
+                    Wallet wallet = walletMap.get(walletHandle);
+                    Wallet.exportWallet(wallet, exportConfig).get();
+                    return null;
+                } finally {
+                    walletUsage.release(walletHandle);
+                }
+            }
+        }));
+    }
+
+    @ReactMethod
+    public void submitImportWalletJob(final String config, final String credentials, final String importConfig, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        promise.resolve(jobRunner.submit("importWallet", new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                Wallet.importWallet(config, credentials, importConfig).get();
+                return null;
+            }
+        }));
+    }
+
+    /**
+     * Runs issuerCreateAndStoreCredentialDef as a job, the job result is JSON [credDefId, credDefJson].
+     */
+    @ReactMethod
+    public void submitIssuerCreateAndStoreCredentialDefJob(final int walletHandle, final String issuerDid, final String schemaJson,
+                                                           final String tag, final String signatureType, final String configJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        promise.resolve(jobRunner.submit("issuerCreateAndStoreCredentialDef", new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                walletUsage.acquire(walletHandle);
+                try {
+                    Wallet wallet = walletMap.get(walletHandle);
+                    IssuerCreateAndStoreCredentialDefResult result = Anoncreds.issuerCreateAndStoreCredentialDef(wallet, issuerDid,
+                            schemaJson, tag, signatureType, configJson).get();
+                    JsonArray response = new JsonArray();
+                    response.add(result.getCredDefId());
+                    response.add(gson.fromJson(result.getCredDefJson(), JsonElement.class));
+                    return gson.toJson(response);
+                } finally {
+                    walletUsage.release(walletHandle);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Resolves the job result once the job finished, rejects with the job error or when it was cancelled.
+     */
+    @ReactMethod
+    public void awaitJob(final String jobId, final Promise promise) {
+        JobRunner.Job job = jobRunner.get(jobId);
+        if (job == null) {
+            Exception e = new IllegalArgumentException("Unknown job " + jobId);
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+            return;
+        }
+        job.result.whenComplete(new BiConsumer<String, Throwable>() {
+            @Override
+            public void accept(String result, Throwable error) {
+                jobRunner.forget(jobId);
+                if (error != null) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(error);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), error);
+                } else {
+                    promise.resolve(result);
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels a queued or running job, resolves false when it already finished. A running libindy call
+     * completes in the background and its result is dropped.
+     */
+    @ReactMethod
+    public void cancelJob(String jobId, Promise promise) {
+        promise.resolve(jobRunner.cancel(jobId));
+    }
+
     // did
 
     @ReactMethod
     public void listMyDidsWithMeta(int walletHandle, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String listDidsWithMetaJson = Did.getListMyDidsWithMeta(wallet).get();
@@ -188,12 +838,56 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
             promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
         }
     }
+
+    /**
+     * Lists DIDs like listMyDidsWithMeta, limit at a time. A null cursor starts a listing, served from the
+     * last listing unless DIDs were created or their metadata set since. Pass nextCursor of a page to get
+     * the next one.
+     *
+     * optionsJson is null or an object with changedSince (ms since epoch) and timestampField, the member of
+     * JSON metadata holding the time of its last change in ms. Resolves JSON {"items", "nextCursor", "total"}.
+     */
+    @ReactMethod
+    public void listMyDidsWithMetaPage(int walletHandle, String cursor, int limit, String optionsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be at least 1, was " + limit);
+            }
+            // "null" parses to null as well
+            JsonObject options = optionsJson == null ? null : gson.fromJson(optionsJson, JsonObject.class);
+            if (options == null) {
+                options = new JsonObject();
+            }
+            DidListing.Snapshot snapshot;
+            int offset = 0;
+            if (cursor == null) {
+                snapshot = didListing.current(walletHandle);
+                if (snapshot == null) {
+                    Wallet wallet = walletMap.get(walletHandle);
+                    snapshot = didListing.store(walletHandle, Did.getListMyDidsWithMeta(wallet).get());
+                }
+            } else {
+                String[] parts = cursor.split(":");
+                snapshot = didListing.get(walletHandle, Long.parseLong(parts[0]));
+                offset = Integer.parseInt(parts[1]);
+            }
+            long changedSince = options.has("changedSince") ? options.get("changedSince").getAsLong() : 0;
+            promise.resolve(didListing.page(walletHandle, snapshot, offset, limit, changedSince, jsonString(options, "timestampField")));
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
 	
     @ReactMethod
     public void setDidMetadata(int walletHandle, String did, String metadataJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             Did.setDidMetadata(wallet, did, metadataJson).get();
+            didMetadataCache.put(walletHandle, did, metadataJson);
+            didListing.touch(walletHandle, did);
             promise.resolve(null);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -201,13 +895,105 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 	
+    /**
+     * Keeps size DIDs pre-created in the wallet, refilled in the background on the wallet lane.
+     * Zero disables refilling, DIDs already in the pool stay available to takePooledDid.
+     */
+    @ReactMethod
+    public void configureDidPool(int walletHandle, int size, Promise promise) {
+        if (size > 0) {
+            didPoolSizes.put(walletHandle, size);
+            scheduleDidPoolRefill(walletHandle);
+        } else {
+            didPoolSizes.remove(walletHandle);
+        }
+        promise.resolve(null);
+    }
+
+    /**
+     * Claims a pre-created DID and resolves [did, verkey] like createAndStoreMyDid. Creates one when the
+     * pool is empty.
+     */
+    @ReactMethod
+    public void takePooledDid(final int walletHandle, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            admission.executeOnLane(walletLane(walletHandle), new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Wallet wallet = walletMap.get(walletHandle);
+                        String[] claimed = DidPool.claim(wallet);
+                        if (claimed == null) {
+                            DidResults.CreateAndStoreMyDidResult created = Did.createAndStoreMyDid(wallet, "{}").get();
+                            claimed = new String[]{created.getDid(), created.getVerkey()};
+                            didListing.touch(walletHandle, created.getDid());
+                        }
+                        localDidKeyCache.put(walletHandle, claimed[0], claimed[1]);
+                        WritableArray response = new WritableNativeArray();
+                        response.pushString(claimed[0]);
+                        response.pushString(claimed[1]);
+                        promise.resolve(response);
+                    } catch (Exception e) {
+                        IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                        promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                    }
+                    scheduleDidPoolRefill(walletHandle);
+                }
+            });
+        } catch (AdmissionControl.BusyException e) {
+            promise.reject(e.getCode(), e.toJson(), e);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Queues a refill of the DID pool unless one is queued already. Every step creates one DID and queues
+     * the next one, so other work on the wallet lane isn't held up by a whole refill.
+     */
+    private static void scheduleDidPoolRefill(final int walletHandle) {
+        if (!didPoolSizes.containsKey(walletHandle) || !walletMap.containsKey(walletHandle) || !didPoolRefills.add(walletHandle)) {
+            return;
+        }
+        try {
+            walletLane(walletHandle).execute(new Runnable() {
+                @Override
+                public void run() {
+                    Wallet wallet = walletMap.get(walletHandle);
+                    Integer size = didPoolSizes.get(walletHandle);
+                    boolean more = false;
+                    try {
+                        if (wallet != null && size != null && DidPool.unusedCount(wallet) < size) {
+                            didListing.touch(walletHandle, DidPool.add(wallet));
+                            more = true;
+                        }
+                    } catch (Exception e) {
+                        Log.w(TAG, "DID pool refill failed", e);
+                    }
+                    didPoolRefills.remove(walletHandle);
+                    if (more) {
+                        scheduleDidPoolRefill(walletHandle);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException | IllegalStateException e) {
+            // Wallet is being closed
+            didPoolRefills.remove(walletHandle);
+        }
+    }
+
     @ReactMethod
     public void createAndStoreMyDid(int walletHandle, String didJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             DidResults.CreateAndStoreMyDidResult createMyDidResult = Did.createAndStoreMyDid(wallet, didJson).get();
             String myDid = createMyDidResult.getDid();
             String myVerkey = createMyDidResult.getVerkey();
+            localDidKeyCache.put(walletHandle, myDid, myVerkey);
+            didListing.touch(walletHandle, myDid);
             WritableArray response = new WritableNativeArray();
             response.pushString(myDid);
             response.pushString(myVerkey);
@@ -218,12 +1004,36 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 
+    @ReactMethod
+    public void getDidMetadata(int walletHandle, String did, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            String metadata = didMetadataCache.get(walletHandle, did);
+            if (metadata == null) {
+                Wallet wallet = walletMap.get(walletHandle);
+                metadata = Did.getDidMetadata(wallet, did).get();
+                didMetadataCache.put(walletHandle, did, metadata);
+            }
+            promise.resolve(metadata);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
     @ReactMethod
     public void keyForDid(int poolHandle, int walletHandle, String did, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
+            String cachedKey = didKeyCache.get(walletHandle, did);
+            if (cachedKey != null) {
+                promise.resolve(cachedKey);
+                return;
+            }
             Wallet wallet = walletMap.get(walletHandle);
             Pool pool = poolMap.get(poolHandle);
             String receivedKey = Did.keyForDid(pool, wallet, did).get();
+            didKeyCache.put(walletHandle, did, receivedKey);
             promise.resolve(receivedKey);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -233,11 +1043,32 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void keyForLocalDid(int walletHandle, String did, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        resolveKeyForLocalDid(walletHandle, did, false, promise);
+    }
+
+    @ReactMethod
+    public void keyForLocalDidOrNull(int walletHandle, String did, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        resolveKeyForLocalDid(walletHandle, did, true, promise);
+    }
+
+    private void resolveKeyForLocalDid(int walletHandle, String did, boolean nullIfNotFound, Promise promise) {
         try {
+            String cachedKey = localDidKeyCache.get(walletHandle, did);
+            if (cachedKey != null) {
+                promise.resolve(cachedKey);
+                return;
+            }
             Wallet wallet = walletMap.get(walletHandle);
             String receivedKey = Did.keyForLocalDid(wallet, did).get();
+            localDidKeyCache.put(walletHandle, did, receivedKey);
             promise.resolve(receivedKey);
         } catch (Exception e) {
+            if (nullIfNotFound && indyErrorCode(e) == ErrorCode.WalletItemNotFound.value()) {
+                promise.resolve(null);
+                return;
+            }
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
             promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
         }
@@ -246,9 +1077,41 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     // pairwise
     @ReactMethod
     public void createPairwise(int walletHandle, String theirDid, String myDid, String metadata, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             Pairwise.createPairwise(wallet, theirDid, myDid, metadata).get();
+
+            // Same shape as the pairwise info returned by libindy
+            JsonObject pairwise = new JsonObject();
+            pairwise.addProperty("my_did", myDid);
+            if (metadata != null) {
+                pairwise.addProperty("metadata", metadata);
+            }
+            pairwiseCache.put(walletHandle, theirDid, gson.toJson(pairwise));
+
+            JsonObject indexed = pairwise.deepCopy();
+            indexed.addProperty("their_did", theirDid);
+            updatePairwiseIndex(walletHandle, theirDid, indexed);
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    @ReactMethod
+    public void setPairwiseMetadata(int walletHandle, String theirDid, String metadata, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            Wallet wallet = walletMap.get(walletHandle);
+            Pairwise.setPairwiseMetadata(wallet, theirDid, metadata).get();
+
+            String pairwiseJson = Pairwise.getPairwise(wallet, theirDid).get();
+            pairwiseCache.put(walletHandle, theirDid, pairwiseJson);
+            JsonObject indexed = gson.fromJson(pairwiseJson, JsonObject.class);
+            indexed.addProperty("their_did", theirDid);
+            updatePairwiseIndex(walletHandle, theirDid, indexed);
             promise.resolve(null);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -256,18 +1119,116 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Puts the pairwise into the sender key index of the wallet, if it was built. The update runs on the wallet lane
+     * so it is ordered after a build in progress; when it can't be applied the index is dropped and rebuilt by the
+     * next inbound batch.
+     */
+    private static void updatePairwiseIndex(final int walletHandle, final String theirDid, final JsonObject pairwise) {
+        if (!pairwiseBySenderKey.containsKey(walletHandle)) {
+            return;
+        }
+        try {
+            walletLane(walletHandle).execute(new Runnable() {
+                @Override
+                public void run() {
+                    Map<String, JsonObject> index = pairwiseBySenderKey.get(walletHandle);
+                    if (index == null) {
+                        return;
+                    }
+                    try {
+                        index.put(theirKey(walletHandle, walletMap.get(walletHandle), theirDid), pairwise);
+                    } catch (Exception e) {
+                        pairwiseBySenderKey.remove(walletHandle);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException | IllegalStateException e) {
+            pairwiseBySenderKey.remove(walletHandle);
+        }
+    }
+
     @ReactMethod
     public void getPairwise(int walletHandle, String theirDid, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        resolvePairwise(walletHandle, theirDid, false, promise);
+    }
+
+    @ReactMethod
+    public void getPairwiseOrNull(int walletHandle, String theirDid, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        resolvePairwise(walletHandle, theirDid, true, promise);
+    }
+
+    private void resolvePairwise(int walletHandle, String theirDid, boolean nullIfNotFound, Promise promise) {
         try {
+            String cachedPairwise = pairwiseCache.get(walletHandle, theirDid);
+            if (cachedPairwise != null) {
+                promise.resolve(cachedPairwise);
+                return;
+            }
             Wallet wallet = walletMap.get(walletHandle);
             String receivedKey = Pairwise.getPairwise(wallet, theirDid).get();
+            pairwiseCache.put(walletHandle, theirDid, receivedKey);
             promise.resolve(receivedKey);
         } catch (Exception e) {
+            if (nullIfNotFound && indyErrorCode(e) == ErrorCode.WalletItemNotFound.value()) {
+                promise.resolve(null);
+                return;
+            }
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
             promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
         }
     }
 
+    // wallet caches
+
+    @SuppressWarnings("unchecked")
+    private static LruCache<String>[] walletCaches() {
+        return new LruCache[]{pairwiseCache, localDidKeyCache, didMetadataCache, didKeyCache};
+    }
+
+    @ReactMethod
+    public void configureWalletCache(int capacity, int keyForDidTtlMillis, Promise promise) {
+        try {
+            if (keyForDidTtlMillis <= 0) {
+                throw new IllegalArgumentException("keyForDid TTL must be positive: " + keyForDidTtlMillis);
+            }
+            for (LruCache<String> cache : walletCaches()) {
+                cache.setCapacity(capacity);
+            }
+            didKeyCache.setTtlMillis(keyForDidTtlMillis);
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    @ReactMethod
+    public void getWalletCacheStats(Promise promise) {
+        WritableMap stats = new WritableNativeMap();
+        for (LruCache<String> cache : walletCaches()) {
+            WritableMap cacheStats = new WritableNativeMap();
+            long hits = cache.getHits();
+            long misses = cache.getMisses();
+            cacheStats.putDouble("hits", hits);
+            cacheStats.putDouble("misses", misses);
+            cacheStats.putDouble("hitRate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+            cacheStats.putInt("size", cache.size());
+            stats.putMap(cache.getName(), cacheStats);
+        }
+        promise.resolve(stats);
+    }
+
+    @ReactMethod
+    public void resetWalletCacheStats(Promise promise) {
+        for (LruCache<String> cache : walletCaches()) {
+            cache.resetStats();
+        }
+        promise.resolve(null);
+    }
+
     // crypto
 
     private byte[] readableArrayToBuffer(ReadableArray arr) {
@@ -280,6 +1241,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void createKey(int walletHandle, String key, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String verkey = Crypto.createKey(wallet, key).get();
@@ -292,9 +1254,12 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void cryptoAnonCrypt(String theirKey, ReadableArray message, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             byte[] buffer = readableArrayToBuffer(message);
+            payloadStats.record("cryptoAnonCrypt", PayloadStats.ARGUMENT, PayloadStats.size(buffer));
             byte[] encryptedData = Crypto.anonCrypt(theirKey, buffer).get();
+            payloadStats.record("cryptoAnonCrypt", PayloadStats.RESULT, PayloadStats.size(encryptedData));
             WritableArray result = new WritableNativeArray();
             for (byte b : encryptedData) {
                 result.pushInt(b);
@@ -308,6 +1273,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void cryptoAnonDecrypt(int walletHandle, String recipientVk, ReadableArray encryptedMessage, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             byte [] encryptedMessageBytes = readableArrayToBuffer(encryptedMessage);
             Wallet wallet = walletMap.get(walletHandle);
@@ -322,10 +1288,13 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     @ReactMethod
     @Deprecated
     public void cryptoAuthCrypt(int walletHandle, String senderVk, String recipientVk, ReadableArray message, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             byte[] buffer = readableArrayToBuffer(message);
             Wallet wallet = walletMap.get(walletHandle);
+            payloadStats.record("cryptoAuthCrypt", PayloadStats.ARGUMENT, PayloadStats.size(buffer));
             byte[] encryptedData = Crypto.authCrypt(wallet, senderVk, recipientVk, buffer).get();
+            payloadStats.record("cryptoAuthCrypt", PayloadStats.RESULT, PayloadStats.size(encryptedData));
             WritableArray result = new WritableNativeArray();
             for (byte b : encryptedData) {
                 result.pushInt(b);
@@ -340,6 +1309,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     @ReactMethod
     @Deprecated
     public void cryptoAuthDecrypt(int walletHandle, String recipientVk, ReadableArray encryptedMessage, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             byte[] encryptedMessageBytes = readableArrayToBuffer(encryptedMessage);
             Wallet wallet = walletMap.get(walletHandle);
@@ -363,6 +1333,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void cryptoSign(int walletHandle, String signerVk, ReadableArray messageRaw, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             byte[] buffer = readableArrayToBuffer(messageRaw);
@@ -380,6 +1351,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void cryptoVerify(String signerVk, ReadableArray messageRaw, ReadableArray signatureRaw, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             byte[] messageBuf = readableArrayToBuffer(messageRaw);
             byte[] sigBuf = readableArrayToBuffer(signatureRaw);
@@ -395,6 +1367,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void packMessage(int walletHandle, ReadableArray message, ReadableArray receiverKeys, String senderVk, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             byte[] buffer = readableArrayToBuffer(message);
@@ -403,10 +1376,11 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
             for (int i = 0; i < receiverKeys.size(); i++) {
                 keys[i] = receiverKeys.getString(i);
             }
-            Gson gson = new Gson();
             String receiverKeysJson = gson.toJson(keys);
 
+            payloadStats.record("packMessage", PayloadStats.ARGUMENT, PayloadStats.size(buffer));
             byte[] jwe = Crypto.packMessage(wallet, receiverKeysJson, senderVk, buffer).get();
+            payloadStats.record("packMessage", PayloadStats.RESULT, PayloadStats.size(jwe));
             WritableArray result = new WritableNativeArray();
             for (byte b : jwe) {
                 result.pushInt(b);
@@ -420,10 +1394,13 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void unpackMessage(int walletHandle, ReadableArray jwe, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             byte[] buffer = readableArrayToBuffer(jwe);
+            payloadStats.record("unpackMessage", PayloadStats.ARGUMENT, PayloadStats.size(buffer));
             byte[] res = Crypto.unpackMessage(wallet, buffer).get();
+            payloadStats.record("unpackMessage", PayloadStats.RESULT, PayloadStats.size(res));
 
             WritableArray result = new WritableNativeArray();
             for (byte b : res) {
@@ -436,10 +1413,127 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Unpacks a batch of JWEs on the wallet lane. Messages from a sender key of a pairwise are stored as wallet
+     * records of recordType with tags theirDid, myDid, senderVerkey, recipientVerkey and @type, messages without
+     * matching pairwise pass through. One IndySdkInboundMessage event is emitted per message, with recordId and
+     * theirDid of stored messages or the unpacked message of passed through ones.
+     *
+     * Resolves JSON {"stored", "passedThrough", "failed"} with the message counts. Rejects without processing
+     * any message when the pairwise of the wallet can't be listed.
+     */
+    @ReactMethod
+    public void processInboundMessages(final int walletHandle, final ReadableArray jwes, final String recordType, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            admission.executeOnLane(walletLane(walletHandle), new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Wallet wallet = walletMap.get(walletHandle);
+                        // A failing build fails the batch once instead of every message
+                        Map<String, JsonObject> pairwiseIndex = pairwiseIndex(walletHandle, wallet);
+                        int stored = 0;
+                        int passedThrough = 0;
+                        int failed = 0;
+
+                        for (int i = 0; i < jwes.size(); i++) {
+                            WritableMap event = Arguments.createMap();
+                            event.putInt("index", i);
+                            try {
+                                byte[] jwe = jwes.getString(i).getBytes(StandardCharsets.UTF_8);
+                                JsonObject unpacked = gson.fromJson(new String(Crypto.unpackMessage(wallet, jwe).get(), StandardCharsets.UTF_8), JsonObject.class);
+                                String message = jsonString(unpacked, "message");
+                                String senderVerkey = jsonString(unpacked, "sender_verkey");
+
+                                JsonObject pairwise = senderVerkey == null ? null : pairwiseIndex.get(senderVerkey);
+                                if (pairwise == null) {
+                                    event.putString("senderVerkey", senderVerkey);
+                                    event.putString("message", message);
+                                    passedThrough++;
+                                } else {
+                                    String recordId = UUID.randomUUID().toString();
+                                    JsonObject tags = new JsonObject();
+                                    tags.addProperty("theirDid", jsonString(pairwise, "their_did"));
+                                    tags.addProperty("myDid", jsonString(pairwise, "my_did"));
+                                    tags.addProperty("senderVerkey", senderVerkey);
+                                    tags.addProperty("recipientVerkey", jsonString(unpacked, "recipient_verkey"));
+                                    String type = messageType(message);
+                                    if (type != null) {
+                                        tags.addProperty("@type", type);
+                                    }
+                                    WalletRecord.add(wallet, recordType, recordId, message, gson.toJson(tags)).get();
+                                    event.putString("recordId", recordId);
+                                    event.putString("theirDid", jsonString(pairwise, "their_did"));
+                                    event.putString("type", type);
+                                    stored++;
+                                }
+                            } catch (Exception e) {
+                                IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                                event.putString("error", rejectResponse.toJson());
+                                failed++;
+                            }
+                            emitEvent("IndySdkInboundMessage", event);
+                        }
+
+                        JsonObject response = new JsonObject();
+                        response.addProperty("stored", stored);
+                        response.addProperty("passedThrough", passedThrough);
+                        response.addProperty("failed", failed);
+                        promise.resolve(gson.toJson(response));
+                    } catch (Exception e) {
+                        IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                        promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                    }
+                }
+            });
+        } catch (AdmissionControl.BusyException e) {
+            promise.reject(e.getCode(), e.toJson(), e);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    // Must run on the wallet lane
+    private static Map<String, JsonObject> pairwiseIndex(int walletHandle, Wallet wallet) throws Exception {
+        Map<String, JsonObject> index = pairwiseBySenderKey.get(walletHandle);
+        if (index != null) {
+            return index;
+        }
+        index = new HashMap<>();
+        for (JsonElement element : gson.fromJson(Pairwise.listPairwise(wallet).get(), JsonArray.class)) {
+            // Entries are JSON strings
+            JsonObject pairwise = gson.fromJson(element.getAsString(), JsonObject.class);
+            index.put(theirKey(walletHandle, wallet, jsonString(pairwise, "their_did")), pairwise);
+        }
+        pairwiseBySenderKey.put(walletHandle, index);
+        return index;
+    }
+
+    private static String theirKey(int walletHandle, Wallet wallet, String theirDid) throws Exception {
+        String theirKey = localDidKeyCache.get(walletHandle, theirDid);
+        if (theirKey == null) {
+            theirKey = Did.keyForLocalDid(wallet, theirDid).get();
+            localDidKeyCache.put(walletHandle, theirDid, theirKey);
+        }
+        return theirKey;
+    }
+
+    private static String messageType(String message) {
+        try {
+            JsonElement parsed = gson.fromJson(message, JsonElement.class);
+            return parsed != null && parsed.isJsonObject() ? jsonString(parsed.getAsJsonObject(), "@type") : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
     // pool
 
     @ReactMethod
     public void setProtocolVersion(int protocolVersion, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Pool.setProtocolVersion(protocolVersion).get();
             promise.resolve(null);
@@ -451,8 +1545,14 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void createPoolLedgerConfig(String configName, String poolConfig, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Pool.createPoolLedgerConfig(configName, poolConfig).get();
+            // Node latency ordering reads the node names from it
+            JsonObject config = poolConfig == null ? null : gson.fromJson(poolConfig, JsonObject.class);
+            if (config != null && config.has("genesis_txn")) {
+                poolGenesisPreferences().edit().putString(configName, config.get("genesis_txn").getAsString()).apply();
+            }
             promise.resolve(null);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -461,77 +1561,424 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    public void openPoolLedger(final String configName, final String poolConfig, final Promise promise) {
-        new Thread(new Runnable(){
+    public void openPoolLedger(final String configName, final String poolConfig, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.POOL, new Runnable() {
+            @Override
+            public void run() {
+                // Attaches to an open started by prewarmPool. The open runs on its own executor, so the pool
+                // thread isn't held up and closePoolLedger doesn't queue behind it.
+                openPoolShared(configName, poolConfig).whenComplete(new BiConsumer<Integer, Throwable>() {
+                    @Override
+                    public void accept(Integer poolHandle, Throwable error) {
+                        if (error != null) {
+                            Throwable cause = new ExecutionException(error instanceof CompletionException ? error.getCause() : error);
+                            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(cause);
+                            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), cause);
+                        } else {
+                            promise.resolve(poolHandle);
+                        }
+                    }
+                });
+            }
+        }, promise);
+    }
+
+    /**
+     * Starts opening the pool in the background and resolves right away. openPoolLedger and
+     * submitRequestToPool calls for the config attach to the open in progress.
+     */
+    @ReactMethod
+    public void prewarmPool(final String configName, String poolConfig, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        openPoolShared(configName, poolConfig).whenComplete(new BiConsumer<Integer, Throwable>() {
+            @Override
+            public void accept(Integer poolHandle, Throwable error) {
+                if (error != null) {
+                    // Callers attached meanwhile get the error too, the next open starts over
+                    Log.w(TAG, "Pool prewarm failed for " + configName, error);
+                }
+            }
+        });
+        promise.resolve(null);
+    }
+
+    /**
+     * Refreshes the pool ledger every intervalMillis while the app is in the foreground, so the node list and
+     * connections don't go stale. Zero or less disables it.
+     */
+    @ReactMethod
+    public void setPoolKeepAlive(final String configName, double intervalMillis, Promise promise) {
+        synchronized (poolKeepAlives) {
+            ScheduledFuture<?> previous = poolKeepAlives.remove(configName);
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            if (intervalMillis > 0) {
+                ScheduledFuture<?> keepAlive = poolKeepAliveExecutor.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        Integer handle = poolNameToHandleMap.get(configName);
+                        Pool pool = handle == null ? null : poolMap.get(handle);
+                        if (!hostResumed || pool == null) {
+                            return;
+                        }
+                        try {
+                            pool.refreshPoolLedger().get();
+                        } catch (Exception e) {
+                            Log.w(TAG, "Pool keep-alive refresh failed for " + configName, e);
+                        }
+                    }
+                }, (long) intervalMillis, (long) intervalMillis, TimeUnit.MILLISECONDS);
+                poolKeepAlives.put(configName, keepAlive);
+            }
+        }
+        promise.resolve(null);
+    }
+
+    /**
+     * Submits a request to the pool opened, or being opened, for the config, so callers don't have to wait
+     * for the pool handle of a prewarmed pool. Opens the pool with default config when it's not open.
+     */
+    @ReactMethod
+    public void submitRequestToPool(final String configName, final String requestJson, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.LEDGER, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    payloadStats.record("submitRequestToPool", PayloadStats.ARGUMENT, PayloadStats.size(requestJson));
+                    String response;
+                    if (ledgerTraffic.isReplaying()) {
+                        response = ledgerTraffic.replay(requestJson).get();
+                    } else {
+                        int poolHandle = openPoolShared(configName, null).get();
+                        Pool pool = poolMap.get(poolHandle);
+                        response = submitAndSample(poolHandle, pool, requestJson);
+                    }
+                    payloadStats.record("submitRequestToPool", PayloadStats.RESULT, PayloadStats.size(response));
+                    promise.resolve(response);
+                } catch (Exception e) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                }
+            }
+        }, promise);
+    }
+
+    /**
+     * Returns the handle of the open pool for the config, or the open in progress, or starts a new open.
+     */
+    private static CompletableFuture<Integer> openPoolShared(final String configName, final String poolConfig) {
+        synchronized (poolOpenings) {
+            Integer openHandle = poolNameToHandleMap.get(configName);
+            if (openHandle != null) {
+                return CompletableFuture.completedFuture(openHandle);
+            }
+            CompletableFuture<Integer> opening = poolOpenings.get(configName);
+            if (opening == null) {
+                opening = CompletableFuture.supplyAsync(new Supplier<Integer>() {
+                    @Override
+                    public Integer get() {
+                        try {
+                            NodeLatencyTracker tracker = nodeLatencyTrackers.get(configName);
+                            String config = tracker == null ? poolConfig : tracker.applyTo(poolConfig);
+                            Pool pool = Pool.openPoolLedger(configName, config).get();
+                            String creditedNode = tracker == null ? null : NodeLatencyTracker.creditedNode(config);
+                            if (creditedNode != null) {
+                                nodeLatencyCreditedNodes.put(pool.getPoolHandle(), creditedNode);
+                            }
+                            synchronized (poolOpenings) {
+                                poolMap.put(pool.getPoolHandle(), pool);
+                                poolNameToHandleMap.put(configName, pool.getPoolHandle());
+                                poolOpenings.remove(configName);
+                            }
+                            return pool.getPoolHandle();
+                        } catch (Exception e) {
+                            synchronized (poolOpenings) {
+                                poolOpenings.remove(configName);
+                            }
+                            throw new CompletionException(e instanceof ExecutionException ? e.getCause() : e);
+                        }
+                    }
+                }, poolOpenExecutor);
+                poolOpenings.put(configName, opening);
+            }
+            return opening;
+        }
+    }
+
+    @ReactMethod
+    public void closePoolLedger(final int handle, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.POOL, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Pool pool = poolMap.get(handle);
+                    pool.closePoolLedger().get();
+                    poolMap.remove(handle);
+                    nodeLatencyCreditedNodes.remove(handle);
+                    taaCache.invalidate(handle);
+                    if (revocationPrefetcher.isRunningOn(handle)) {
+                        revocationPrefetcher.stop();
+                    }
+
+                    // Remove pool id mapping
+                    for (Map.Entry<String, Integer> entry : poolNameToHandleMap.entrySet()) {
+                        if (entry.getValue().equals(handle)) {
+                            poolNameToHandleMap.remove(entry.getKey());
+                            break;
+                        }
+                    }
+
+                    promise.resolve(null);
+                } catch (Exception e) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                }
+            }
+        }, promise);
+    }
+
+    /**
+     * Enables ordering the nodes of a pool by measured reply latency. Every sampleEvery-th read submitted to
+     * the pool is timed, no extra requests are sent. Measurements are persisted and the next openPoolLedger of
+     * the config gets preordered_nodes and number_read_nodes from them, see NodeLatencyTracker.
+     *
+     * Node names are read from the genesis transactions file the config was created with, or from the copy
+     * libindy keeps when the config wasn't created by this module.
+     */
+    @ReactMethod
+    public void setNodeLatencyOrdering(String configName, boolean enabled, int sampleEvery, Promise promise) {
+        if (enabled) {
+            NodeLatencyTracker tracker = new NodeLatencyTracker();
+            String saved = nodeLatencyPreferences().getString(configName, null);
+            if (saved != null) {
+                tracker.load(saved);
+            }
+            String genesisPath = poolGenesisPreferences().getString(configName, null);
+            if (genesisPath == null) {
+                // libindy keeps its files under $EXTERNAL_STORAGE/.indy_client on Android
+                genesisPath = System.getenv("EXTERNAL_STORAGE") + "/.indy_client/pool/" + configName + "/" + configName + ".txn";
+            }
+            try {
+                for (String node : NodeLatencyTracker.genesisNodeNames(genesisPath)) {
+                    tracker.addNode(node);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Node names of pool " + configName + " can't be read from " + genesisPath, e);
+            }
+            tracker.setSampleEvery(sampleEvery);
+            nodeLatencyTrackers.put(configName, tracker);
+        } else {
+            nodeLatencyTrackers.remove(configName);
+        }
+        promise.resolve(null);
+    }
+
+    /**
+     * Resolves JSON object keyed by node name with averageMillis, samples and failures of each node.
+     */
+    @ReactMethod
+    public void getNodeLatencyStats(String configName, Promise promise) {
+        NodeLatencyTracker tracker = nodeLatencyTrackers.get(configName);
+        promise.resolve(tracker == null ? null : tracker.toJson());
+    }
+
+    @ReactMethod
+    public void resetNodeLatencyStats(String configName, Promise promise) {
+        nodeLatencyPreferences().edit().remove(configName).apply();
+        NodeLatencyTracker tracker = nodeLatencyTrackers.get(configName);
+        if (tracker != null) {
+            tracker.reset();
+        }
+        promise.resolve(null);
+    }
+
+    private SharedPreferences nodeLatencyPreferences() {
+        return reactContext.getSharedPreferences("IndySdkNodeLatency", Context.MODE_PRIVATE);
+    }
+
+    // Genesis transactions file by pool config name, as passed to createPoolLedgerConfig
+    private SharedPreferences poolGenesisPreferences() {
+        return reactContext.getSharedPreferences("IndySdkPoolGenesis", Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Submits a request and credits its reply time, or a timeout, to the node the reads of the pool go to
+     * while latency ordering is enabled for it.
+     */
+    private String submitAndSample(int poolHandle, Pool pool, String requestJson) throws Exception {
+        long start = System.nanoTime();
+        try {
+            String response = submitToLedger(pool, requestJson);
+            sampleNodeLatency(poolHandle, requestJson, (System.nanoTime() - start) / 1e6, false);
+            return response;
+        } catch (ExecutionException e) {
+            if (indyErrorCode(e) == ErrorCode.PoolLedgerTimeout.value()) {
+                sampleNodeLatency(poolHandle, requestJson, 0, true);
+            }
+            throw e;
+        }
+    }
+
+    private void sampleNodeLatency(int poolHandle, String requestJson, double millis, boolean timedOut) {
+        String node = nodeLatencyCreditedNodes.get(poolHandle);
+        String configName = node == null ? null : poolConfigName(poolHandle);
+        NodeLatencyTracker tracker = configName == null ? null : nodeLatencyTrackers.get(configName);
+        if (tracker == null || ledgerTraffic.isReplaying()) {
+            return;
+        }
+        // Only reads are answered by the read node alone, writes wait for consensus
+        JsonObject request = gson.fromJson(requestJson, JsonObject.class);
+        if (request.has("signature") || request.has("signatures") || !tracker.shouldSample()) {
+            return;
+        }
+        if (timedOut) {
+            tracker.recordFailure(node);
+        } else {
+            tracker.record(node, millis);
+        }
+        saveNodeLatency(configName, tracker);
+    }
+
+    /**
+     * Persists the measurements of the tracker NODE_LATENCY_SAVE_DELAY_MILLIS after the first unsaved sample,
+     * the samples taken in between are saved with it.
+     */
+    private void saveNodeLatency(final String configName, final NodeLatencyTracker tracker) {
+        if (!nodeLatencySaves.add(configName)) {
+            return;
+        }
+        poolKeepAliveExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                nodeLatencySaves.remove(configName);
+                String json = tracker.snapshotIfChanged();
+                if (json != null) {
+                    nodeLatencyPreferences().edit().putString(configName, json).apply();
+                }
+            }
+        }, NODE_LATENCY_SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static String poolConfigName(int poolHandle) {
+        for (Map.Entry<String, Integer> entry : poolNameToHandleMap.entrySet()) {
+            if (entry.getValue() == poolHandle) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    // ledger
+
+    @ReactMethod
+    public void submitRequest(final int poolHandle, final String requestJson, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.LEDGER, new Runnable() {
             @Override
             public void run() {
                 try {
-                    if (poolNameToHandleMap.get(configName) != null){
-                        promise.resolve(poolNameToHandleMap.get(configName));
-
-                    } else {
-                        Pool pool = Pool.openPoolLedger(configName, poolConfig).get();
-                        poolMap.put(pool.getPoolHandle(), pool);
-                        poolNameToHandleMap.put(configName, pool.getPoolHandle());
-                        promise.resolve(pool.getPoolHandle());
-                    }
+                    payloadStats.record("submitRequest", PayloadStats.ARGUMENT, PayloadStats.size(requestJson));
+                    Pool pool = poolMap.get(poolHandle);
+                    String response = submitAndSample(poolHandle, pool, requestJson);
+                    payloadStats.record("submitRequest", PayloadStats.RESULT, PayloadStats.size(response));
+                    promise.resolve(response);
                 } catch (Exception e) {
                     IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
                     promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
                 }
             }
-        }, "openPoolLedger").start();
+
+        }, promise);
     }
 
+    /**
+     * Submits a request and returns only part of the reply, so the full reply with state proofs never
+     * crosses the bridge.
+     *
+     * optionsJson is an object with optional "parse", a read request kind whose Ledger.parseGet*Response
+     * is applied to the reply, and "fields", a list of dot separated paths picked from the (parsed) reply.
+     */
     @ReactMethod
-    public void closePoolLedger(final int handle, final Promise promise) {
-        new Thread(new Runnable(){
+    public void submitRequestProjected(final int poolHandle, final String requestJson, final String optionsJson, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.LEDGER, new Runnable() {
             @Override
             public void run() {
                 try {
-                    Pool pool = poolMap.get(handle);
-                    pool.closePoolLedger().get();
-                    poolMap.remove(handle);
-
-                    // Remove pool id mapping
-                    for (Map.Entry<String, Integer> entry : poolNameToHandleMap.entrySet()) {
-                        if (entry.getValue().equals(handle)) {
-                            poolNameToHandleMap.remove(entry.getKey());
-                            break;
-                        }
+                    payloadStats.record("submitRequestProjected", PayloadStats.ARGUMENT, PayloadStats.size(requestJson, optionsJson));
+                    Pool pool = poolMap.get(poolHandle);
+                    JsonObject options = gson.fromJson(optionsJson, JsonObject.class);
+                    String response = submitAndSample(poolHandle, pool, requestJson);
+                    String parseKind = jsonString(options, "parse");
+                    if (parseKind != null) {
+                        response = LedgerRequests.parse(parseKind, response);
                     }
-
-                    promise.resolve(null);
+                    if (options.has("fields")) {
+                        response = LedgerRequests.project(response, options.getAsJsonArray("fields"));
+                    }
+                    payloadStats.record("submitRequestProjected", PayloadStats.RESULT, PayloadStats.size(response));
+                    promise.resolve(response);
                 } catch (Exception e) {
                     IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
                     promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
                 }
             }
-        }, "closePoolLedger").start();
+
+        }, promise);
     }
 
-    // ledger
+    /**
+     * Appends every request and reply submitted through the module, with its duration, to a JSON lines file.
+     */
+    @ReactMethod
+    public void startLedgerRecording(String path, Promise promise) {
+        try {
+            ledgerTraffic.startRecording(path);
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
 
+    /**
+     * Answers submitted requests from a recording instead of the pool, after the recorded duration times
+     * timeScale (zero for no delay). Requests missing from the recording are rejected. ignoredMembers are
+     * dotted member paths left out of the matching, e.g. "operation.dest" for DIDs created without a seed.
+     */
     @ReactMethod
-    public void submitRequest(final int poolHandle, final String requestJson, final Promise promise) {
-        new Thread(new Runnable(){
-            @Override
-            public void run() {
-                try {
-                    Pool pool = poolMap.get(poolHandle);
-                    String response = Ledger.submitRequest(pool, requestJson).get();
-                    promise.resolve(response);
-                } catch (Exception e) {
-                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
-                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
-                }
+    public void startLedgerReplay(String path, double timeScale, ReadableArray ignoredMembers, Promise promise) {
+        try {
+            List<String> ignored = new ArrayList<>();
+            for (int i = 0; i < ignoredMembers.size(); i++) {
+                ignored.add(ignoredMembers.getString(i));
             }
+            ledgerTraffic.startReplay(path, timeScale, ignored);
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
 
-        }, "submitRequest").start();
+    @ReactMethod
+    public void stopLedgerTraffic(Promise promise) {
+        try {
+            ledgerTraffic.stop();
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
     }
 
     @ReactMethod
     public void signRequest(int walletHandle, String submitterDid, String requestJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String request = Ledger.signRequest(wallet, submitterDid, requestJson).get();
@@ -544,6 +1991,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildGetTxnRequest(String submitterDid, String ledgerType, int seqNo, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildGetTxnRequest(submitterDid, ledgerType, seqNo).get();
             promise.resolve(request);
@@ -555,6 +2003,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildSchemaRequest(String submitterDid, String data, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildSchemaRequest(submitterDid, data).get();
             promise.resolve(request);
@@ -566,6 +2015,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildGetSchemaRequest(String submitterDid, String id, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildGetSchemaRequest(submitterDid, id).get();
             promise.resolve(request);
@@ -577,6 +2027,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void parseGetSchemaResponse(String getSchemaResponse, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             LedgerResults.ParseResponseResult ledgerResult = Ledger.parseGetSchemaResponse(getSchemaResponse).get();
             WritableArray result = new WritableNativeArray();
@@ -591,6 +2042,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildCredDefRequest(String submitterDid, String data, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildCredDefRequest(submitterDid, data).get();
             promise.resolve(request);
@@ -602,6 +2054,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildGetCredDefRequest(String submitterDid, String id, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildGetCredDefRequest(submitterDid, id).get();
             promise.resolve(request);
@@ -613,6 +2066,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void parseGetCredDefResponse(String getCredDefResponse, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             LedgerResults.ParseResponseResult ledgerResult = Ledger.parseGetCredDefResponse(getCredDefResponse).get();
             WritableArray result = new WritableNativeArray();
@@ -627,6 +2081,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildGetRevocRegDefRequest(String submitterDid, String revocRegDefId, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildGetRevocRegDefRequest(submitterDid, revocRegDefId).get();
             promise.resolve(request);
@@ -638,8 +2093,11 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void parseGetRevocRegDefResponse(String response, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try{
+            payloadStats.record("parseGetRevocRegDefResponse", PayloadStats.ARGUMENT, PayloadStats.size(response));
             LedgerResults.ParseResponseResult ledgerResult = Ledger.parseGetRevocRegDefResponse(response).get();
+            payloadStats.record("parseGetRevocRegDefResponse", PayloadStats.RESULT, PayloadStats.size(ledgerResult.getId(), ledgerResult.getObjectJson()));
             WritableArray result = new WritableNativeArray();
             result.pushString(ledgerResult.getId());
             result.pushString(ledgerResult.getObjectJson());
@@ -658,6 +2116,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         int to,
         Promise promise
     ){
+        IndyLibrary.ensureLoaded();
         try{
             String request = Ledger.buildGetRevocRegDeltaRequest(submitterDid,revocRegDefId,from,to).get();
             promise.resolve(request);
@@ -669,8 +2128,11 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void parseGetRevocRegDeltaResponse(String getRevocRegDeltaResponse, Promise promise){
+        IndyLibrary.ensureLoaded();
         try{
+            payloadStats.record("parseGetRevocRegDeltaResponse", PayloadStats.ARGUMENT, PayloadStats.size(getRevocRegDeltaResponse));
             LedgerResults.ParseRegistryResponseResult ledgerResult = Ledger.parseGetRevocRegDeltaResponse(getRevocRegDeltaResponse).get();
+            payloadStats.record("parseGetRevocRegDeltaResponse", PayloadStats.RESULT, PayloadStats.size(ledgerResult.getId(), ledgerResult.getObjectJson()));
             WritableArray result = new WritableNativeArray();
             result.pushString(ledgerResult.getId());
             result.pushString(ledgerResult.getObjectJson());
@@ -689,6 +2151,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         int timestamp,
         Promise promise
     ){
+        IndyLibrary.ensureLoaded();
         try{
             String request = Ledger.buildGetRevocRegRequest(submitterDid,revocRegDefId,timestamp).get();
             promise.resolve(request);
@@ -700,6 +2163,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void parseGetRevocRegResponse(String getRevocRegResponse, Promise promise){
+        IndyLibrary.ensureLoaded();
         try{
             LedgerResults.ParseRegistryResponseResult ledgerResult = Ledger.parseGetRevocRegResponse(getRevocRegResponse).get();
             WritableArray result = new WritableNativeArray();
@@ -715,6 +2179,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildGetAttribRequest(String submitterDid, String targetDid, String raw, String hash, String enc, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildGetAttribRequest(submitterDid, targetDid, raw, hash, enc).get();
             promise.resolve(request);
@@ -726,6 +2191,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildGetNymRequest(String submitterDid, String targetDid, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildGetNymRequest(submitterDid, targetDid).get();
             promise.resolve(request);
@@ -737,6 +2203,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void parseGetNymResponse(String response, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String parsedResponse = Ledger.parseGetNymResponse(response).get();
             promise.resolve(parsedResponse);
@@ -748,6 +2215,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void appendTxnAuthorAgreementAcceptanceToRequest(String requestJson, String text, String version, String taaDigest, String mechanism, int time, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.appendTxnAuthorAgreementAcceptanceToRequest(requestJson, text, version, taaDigest, mechanism, time).get();
             promise.resolve(request);
@@ -759,6 +2227,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void buildGetTxnAuthorAgreementRequest(String submitterDid, String data, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String request = Ledger.buildGetTxnAuthorAgreementRequest(submitterDid, data).get();
             promise.resolve(request);
@@ -768,11 +2237,133 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 
-    
+    /**
+     * Builds a write request of the given kind, optionally appends the transaction author agreement
+     * acceptance, signs it with the submitter DID and submits it. Resolves the reply parsed with
+     * LedgerRequests.parseWrite, a REJECT or REQNACK reply rejects with an IndyLedgerRejected error.
+     *
+     * taaJson is null or an object with text, version, taaDigest, mechanism and time as taken by
+     * appendTxnAuthorAgreementAcceptanceToRequest. When null, the cached agreement of the pool is
+     * accepted if auto-accept is enabled with setTxnAuthorAgreementAutoAccept.
+     */
+    @ReactMethod
+    public void buildSignSubmit(final String kind, final String paramsJson, final int walletHandle, final String submitterDid,
+                                final int poolHandle, final String taaJson, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.LEDGER, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    walletUsage.acquire(walletHandle);
+                } catch (IllegalStateException e) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                    return;
+                }
+                try {
+                    Wallet wallet = walletMap.get(walletHandle);
+                    Pool pool = poolMap.get(poolHandle);
+                    String request = LedgerRequests.build(kind, submitterDid, gson.fromJson(paramsJson, JsonObject.class));
+                    if (taaJson != null) {
+                        JsonObject taa = gson.fromJson(taaJson, JsonObject.class);
+                        request = Ledger.appendTxnAuthorAgreementAcceptanceToRequest(request,
+                                jsonString(taa, "text"), jsonString(taa, "version"), jsonString(taa, "taaDigest"),
+                                jsonString(taa, "mechanism"), taa.get("time").getAsInt()).get();
+                    } else {
+                        request = taaCache.accept(poolHandle, pool, request);
+                    }
+                    String response = submitToLedger(pool, Ledger.signRequest(wallet, submitterDid, request).get());
+                    LedgerRequests.checkReply(response);
+                    promise.resolve(LedgerRequests.parseWrite(response));
+                } catch (LedgerRequests.RejectedException e) {
+                    promise.reject("0", e.toJson(), e);
+                } catch (Exception e) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                } finally {
+                    walletUsage.release(walletHandle);
+                }
+            }
+        }, promise);
+    }
+
+    /**
+     * Builds a read request of the given kind, submits it and parses the reply with the matching
+     * Ledger.parseGet*Response. Params may carry "submitter_did".
+     */
+    @ReactMethod
+    public void buildSubmitRead(final String kind, final String paramsJson, final int poolHandle, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.LEDGER, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!LedgerRequests.isRead(kind)) {
+                        throw new IllegalArgumentException("Not a read request kind: " + kind);
+                    }
+                    Pool pool = poolMap.get(poolHandle);
+                    JsonObject params = gson.fromJson(paramsJson, JsonObject.class);
+                    String request = LedgerRequests.build(kind, jsonString(params, "submitter_did"), params);
+                    String response = submitAndSample(poolHandle, pool, request);
+                    LedgerRequests.checkReply(response);
+                    promise.resolve(LedgerRequests.parse(kind, response));
+                } catch (LedgerRequests.RejectedException e) {
+                    promise.reject("0", e.toJson(), e);
+                } catch (Exception e) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                }
+            }
+        }, promise);
+    }
+
+    /**
+     * Resolves JSON {"taa", "aml"} with the active transaction author agreement and acceptance mechanisms
+     * of the pool. Served from cache unless it's older than the refresh interval or forceRefresh is set.
+     */
+    @ReactMethod
+    public void getTxnAuthorAgreement(final int poolHandle, final boolean forceRefresh, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        admit(AdmissionControl.LEDGER, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Pool pool = poolMap.get(poolHandle);
+                    promise.resolve(taaCache.get(poolHandle, pool, forceRefresh));
+                } catch (Exception e) {
+                    IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                    promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                }
+            }
+        }, promise);
+    }
+
+    /**
+     * Enables accepting the active agreement with the given mechanism on writes sent with buildSignSubmit
+     * to the pool, null mechanism disables it. Time is the acceptance time in seconds, zero to use
+     * the start of the current day (UTC), which fails writes while the agreement was ratified today.
+     * Reset when the pool is closed.
+     *
+     * Only buildSignSubmit attaches the acceptance, requests sent with submitRequest or signAndSubmitRequest
+     * are submitted as given.
+     */
+    @ReactMethod
+    public void setTxnAuthorAgreementAutoAccept(int poolHandle, String mechanism, double time, Promise promise) {
+        taaCache.setAutoAccept(poolHandle, mechanism, (long) time);
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void setTxnAuthorAgreementRefreshInterval(double refreshIntervalMillis, Promise promise) {
+        taaCache.setRefreshIntervalMillis((long) refreshIntervalMillis);
+        promise.resolve(null);
+    }
+
     // anoncreds
 
     @ReactMethod
     public void issuerCreateSchema(String issuerDid, String name, String version, String attrs, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             IssuerCreateSchemaResult schemaResult = Anoncreds.issuerCreateSchema(issuerDid, name, version, attrs).get();
             WritableArray response = new WritableNativeArray();
@@ -787,6 +2378,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     
     @ReactMethod
     public void issuerCreateAndStoreCredentialDef(int walletHandle, String issuerDid, String schemaJson, String tag, String signatureType, String configJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             IssuerCreateAndStoreCredentialDefResult schemaResult = Anoncreds.issuerCreateAndStoreCredentialDef(wallet, issuerDid, schemaJson, tag, signatureType, configJson).get();
@@ -802,9 +2394,13 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     
     @ReactMethod
     public void issuerCreateCredential(int walletHandle, String credOffer, String credReq, String credvalues, String revRegId, int blobStorageReaderHandle, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
-            IssuerCreateCredentialResult  createCredResult = Anoncreds.issuerCreateCredential(wallet, credOffer, credReq, credvalues, revRegId, blobStorageReaderHandle).get();
+            IssuerCreateCredentialResult createCredResult;
+            synchronized (revocationRegistryLock(walletHandle, revRegId)) {
+                createCredResult = Anoncreds.issuerCreateCredential(wallet, credOffer, credReq, credvalues, revRegId, blobStorageReaderHandle).get();
+            }
             WritableArray response = new WritableNativeArray();
             response.pushString(createCredResult.getCredentialJson());
             response.pushString(createCredResult.getRevocId());
@@ -816,8 +2412,149 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
     
+    /**
+     * Issues credentials for a list of items {credOffer, credReq, credValues, revRegId?, blobStorageReaderHandle?}
+     * concurrently. revRegId and blobStorageReaderHandle default to the batch arguments. Items of the same
+     * revocation registry are issued one after another.
+     *
+     * Resolves JSON {"results", "failed", "totalMs"} with results in item order, each {ok, credential,
+     * revocId, revocRegDelta, durationMs} or {ok, error, durationMs}. The wallet is held open until every
+     * item ended, closeWallet waits for the batch.
+     */
+    @ReactMethod
+    public void issuerCreateCredentials(final int walletHandle, String itemsJson, String revRegId, int blobStorageReaderHandle, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            walletUsage.acquire(walletHandle);
+        } catch (IllegalStateException e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+            return;
+        }
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try {
+            final Wallet wallet = walletMap.get(walletHandle);
+            final JsonArray items = gson.fromJson(itemsJson, JsonArray.class);
+            final JsonObject[] results = new JsonObject[items.size()];
+            final long batchStart = System.nanoTime();
+
+            // Items without registry run on their own, items of one registry run as one sequence
+            Map<String, List<Integer>> sequences = new LinkedHashMap<>();
+            for (int i = 0; i < items.size(); i++) {
+                String itemRevRegId;
+                try {
+                    JsonObject item = items.get(i).getAsJsonObject();
+                    itemRevRegId = item.has("revRegId") ? jsonString(item, "revRegId") : revRegId;
+                } catch (RuntimeException e) {
+                    // Malformed item, it fails on its own when issued
+                    itemRevRegId = null;
+                }
+                String key = itemRevRegId == null ? "item:" + i : itemRevRegId;
+                if (!sequences.containsKey(key)) {
+                    sequences.put(key, new ArrayList<Integer>());
+                }
+                sequences.get(key).add(i);
+            }
+
+            final String defaultRevRegId = revRegId;
+            final int defaultBlobStorageReaderHandle = blobStorageReaderHandle;
+            for (final List<Integer> sequence : sequences.values()) {
+                futures.add(CompletableFuture.runAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int index : sequence) {
+                            JsonObject result = new JsonObject();
+                            long start = System.nanoTime();
+                            try {
+                                JsonObject item = items.get(index).getAsJsonObject();
+                                String itemRevRegId = item.has("revRegId") ? jsonString(item, "revRegId") : defaultRevRegId;
+                                int readerHandle = item.has("blobStorageReaderHandle")
+                                        ? item.get("blobStorageReaderHandle").getAsInt()
+                                        : defaultBlobStorageReaderHandle;
+                                IssuerCreateCredentialResult created;
+                                synchronized (revocationRegistryLock(walletHandle, itemRevRegId)) {
+                                    created = Anoncreds.issuerCreateCredential(wallet, jsonString(item, "credOffer"),
+                                            jsonString(item, "credReq"), jsonString(item, "credValues"), itemRevRegId, readerHandle).get();
+                                }
+                                result.addProperty("ok", true);
+                                result.add("credential", gson.fromJson(created.getCredentialJson(), JsonElement.class));
+                                result.addProperty("revocId", created.getRevocId());
+                                result.add("revocRegDelta", created.getRevocRegDeltaJson() == null
+                                        ? JsonNull.INSTANCE
+                                        : gson.fromJson(created.getRevocRegDeltaJson(), JsonElement.class));
+                            } catch (Exception e) {
+                                IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                                result.addProperty("ok", false);
+                                result.add("error", gson.toJsonTree(rejectResponse));
+                            }
+                            result.addProperty("durationMs", (System.nanoTime() - start) / 1e6);
+                            results[index] = result;
+                        }
+                    }
+                }, issuanceExecutor));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete(new BiConsumer<Void, Throwable>() {
+                @Override
+                public void accept(Void ignored, Throwable error) {
+                    // Every sequence ended, the wallet may be closed
+                    walletUsage.release(walletHandle);
+                    JsonArray resultArray = new JsonArray();
+                    int failed = 0;
+                    for (JsonObject result : results) {
+                        if (result == null) {
+                            // The sequence of the item ended early
+                            result = new JsonObject();
+                            result.addProperty("ok", false);
+                            result.add("error", gson.toJsonTree(new IndySdkRejectResponse(
+                                    error != null ? error : new IllegalStateException("Credential was not issued"))));
+                        }
+                        resultArray.add(result);
+                        if (!result.get("ok").getAsBoolean()) {
+                            failed++;
+                        }
+                    }
+                    JsonObject response = new JsonObject();
+                    response.add("results", resultArray);
+                    response.addProperty("failed", failed);
+                    response.addProperty("totalMs", (System.nanoTime() - batchStart) / 1e6);
+                    promise.resolve(gson.toJson(response));
+                }
+            });
+        } catch (Exception e) {
+            // Sequences already started keep the wallet open until they ended
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete(new BiConsumer<Void, Throwable>() {
+                @Override
+                public void accept(Void ignored, Throwable error) {
+                    walletUsage.release(walletHandle);
+                }
+            });
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    private static Object revocationRegistryLock(int walletHandle, String revRegId) {
+        if (revRegId == null) {
+            return new Object();
+        }
+        Map<String, Object> walletLocks = revocationRegistryLocks.computeIfAbsent(walletHandle, new Function<Integer, Map<String, Object>>() {
+            @Override
+            public Map<String, Object> apply(Integer handle) {
+                return new ConcurrentHashMap<>();
+            }
+        });
+        return walletLocks.computeIfAbsent(revRegId, new Function<String, Object>() {
+            @Override
+            public Object apply(String key) {
+                return new Object();
+            }
+        });
+    }
+
     @ReactMethod
     public void issuerCreateCredentialOffer(int walletHandle, String credDefId, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String response = Anoncreds.issuerCreateCredentialOffer(wallet, credDefId).get();
@@ -830,6 +2567,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void proverCreateMasterSecret(int walletHandle, String masterSecretId, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String outputMasterSecretId = Anoncreds.proverCreateMasterSecret(wallet, masterSecretId).get();
@@ -842,6 +2580,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void proverCreateCredentialReq(int walletHandle, String proverDid, String credentialOfferJson, String credentialDefJson, String masterSecretId, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             AnoncredsResults.ProverCreateCredentialRequestResult credentialRequestResult = Anoncreds.proverCreateCredentialReq(wallet, proverDid, credentialOfferJson, credentialDefJson, masterSecretId).get();
@@ -857,9 +2596,16 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void proverStoreCredential(int walletHandle, String credId, String credReqMetadataJson, String credJson, String credDefJson, String revRegDefJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String newCredId = Anoncreds.proverStoreCredential(wallet, credId, credReqMetadataJson, credJson, credDefJson, revRegDefJson).get();
+            if (credentialIndexEnabled && credentialIndex.isBuilt(walletHandle)) {
+                credentialIndex.onStored(walletHandle, Anoncreds.proverGetCredential(wallet, newCredId).get());
+            }
+            if (revRegDefJson != null) {
+                revocationPrefetcher.track(jsonString(gson.fromJson(credJson, JsonObject.class), "rev_reg_id"));
+            }
             promise.resolve(newCredId);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -869,9 +2615,33 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void proverDeleteCredential(int walletHandle, String credId, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             Anoncreds.proverDeleteCredential(wallet, credId).get();
+            credentialIndex.onDeleted(walletHandle, credId);
+            promise.resolve(null);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Starts fetching the deltas of tracked revocation registries from the pool in the background.
+     *
+     * optionsJson is an object with optional intervalMillis (15 minutes by default), requireUnmetered,
+     * requireCharging and minBatteryLevel (percent, ignored while charging). Registries of credentials
+     * stored with a revocation registry are tracked automatically.
+     */
+    @ReactMethod
+    public void startRevocationPrefetch(int poolHandle, String optionsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            RevocationPrefetcher.Options options = optionsJson == null
+                    ? new RevocationPrefetcher.Options()
+                    : gson.fromJson(optionsJson, RevocationPrefetcher.Options.class);
+            revocationPrefetcher.start(reactContext, poolHandle, poolMap.get(poolHandle), options);
             promise.resolve(null);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -879,8 +2649,59 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 
+    @ReactMethod
+    public void stopRevocationPrefetch(Promise promise) {
+        revocationPrefetcher.stop();
+        promise.resolve(null);
+    }
+
+    /**
+     * Tracks the revocation registries of all credentials held in the wallet. Resolves the number of
+     * tracked registries.
+     */
+    @ReactMethod
+    public void trackHeldRevocationRegistries(int walletHandle, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            Wallet wallet = walletMap.get(walletHandle);
+            JsonArray credentials = gson.fromJson(Anoncreds.proverGetCredentials(wallet, "{}").get(), JsonArray.class);
+            for (JsonElement credential : credentials) {
+                String revRegId = jsonString(credential.getAsJsonObject(), "rev_reg_id");
+                if (revRegId != null) {
+                    revocationPrefetcher.track(revRegId);
+                }
+            }
+            promise.resolve(revocationPrefetcher.trackedCount());
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    @ReactMethod
+    public void trackRevocationRegistry(String revRegDefId, Promise promise) {
+        revocationPrefetcher.track(revRegDefId);
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void untrackRevocationRegistry(String revRegDefId, Promise promise) {
+        revocationPrefetcher.untrack(revRegDefId);
+        promise.resolve(null);
+    }
+
+    /**
+     * Resolves the prefetched delta of a registry from its start in the shape of a parsed GET_REVOC_REG_DELTA
+     * reply, or null when it was not fetched yet.
+     */
+    @ReactMethod
+    public void getPrefetchedRevocationRegistryDelta(String revRegDefId, Promise promise) {
+        promise.resolve(revocationPrefetcher.get(revRegDefId));
+    }
+
     @ReactMethod
     public void proverGetCredential(int walletHandle, String credId, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String credential = Anoncreds.proverGetCredential(wallet, credId).get();
@@ -893,28 +2714,60 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void proverGetCredentials(int walletHandle, String filter, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
+            payloadStats.record("proverGetCredentials", PayloadStats.ARGUMENT, PayloadStats.size(filter));
             Wallet wallet = walletMap.get(walletHandle);
-            String credentials = Anoncreds.proverGetCredentials(wallet, filter).get();
-            promise.resolve(credentials);
+            List<String> indexedCredIds = credentialIndexEnabled ? credentialIndex.match(walletHandle, wallet, filter) : null;
+            if (indexedCredIds == null) {
+                String credentials = Anoncreds.proverGetCredentials(wallet, filter).get();
+                payloadStats.record("proverGetCredentials", PayloadStats.RESULT, PayloadStats.size(credentials));
+                promise.resolve(credentials);
+                return;
+            }
+
+            // The index answered the filter, so only the matching credentials are read from the wallet
+            List<CompletableFuture<String>> lookups = new ArrayList<>();
+            for (String credId : indexedCredIds) {
+                lookups.add(Anoncreds.proverGetCredential(wallet, credId));
+            }
+            JsonArray credentials = new JsonArray();
+            for (CompletableFuture<String> lookup : lookups) {
+                credentials.add(gson.fromJson(lookup.get(), JsonElement.class));
+            }
+            String credentialsJson = gson.toJson(credentials);
+            payloadStats.record("proverGetCredentials", PayloadStats.RESULT, PayloadStats.size(credentialsJson));
+            promise.resolve(credentialsJson);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
             promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
         }
     }
 
+    @ReactMethod
+    public void setCredentialIndexEnabled(boolean enabled, Promise promise) {
+        credentialIndexEnabled = enabled;
+        if (!enabled) {
+            credentialIndex.clear();
+        }
+        promise.resolve(null);
+    }
+
     @ReactMethod
     public void proverGetCredentialsForProofReq(
       int walletHandle,
 			String proofRequest,
       Promise promise
       ) {
+        IndyLibrary.ensureLoaded();
         try {
+            payloadStats.record("proverGetCredentialsForProofReq", PayloadStats.ARGUMENT, PayloadStats.size(proofRequest));
             Wallet wallet = walletMap.get(walletHandle);
             String credentials = Anoncreds.proverGetCredentialsForProofReq(
               wallet, 
               proofRequest
             ).get();
+            payloadStats.record("proverGetCredentialsForProofReq", PayloadStats.RESULT, PayloadStats.size(credentials));
             promise.resolve(credentials);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -924,6 +2777,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void proverSearchCredentialsForProofReq(int walletHandle, String proofRequest, String extraQuery, Promise promise) {
+        IndyLibrary.ensureLoaded();
       try {
             int searchHandle = credentialSearchIterator++; 
             Wallet wallet = walletMap.get(walletHandle);
@@ -938,9 +2792,11 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void proverFetchCredentialsForProofReq(int searchHandle, String itemReferent, int count, Promise promise) {
+        IndyLibrary.ensureLoaded();
       try {
           CredentialsSearchForProofReq search = credentialSearchMap.get(searchHandle);
           String recordsJson = search.fetchNextCredentials(itemReferent, count).get();
+          payloadStats.record("proverFetchCredentialsForProofReq", PayloadStats.RESULT, PayloadStats.size(recordsJson));
           promise.resolve(recordsJson);
       } catch (Exception e) {
           IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -948,8 +2804,62 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
       }
     }
 
+    @ReactMethod
+    public void proverFetchAllCredentialsForProofReq(int walletHandle, String proofRequest, String extraQuery, int count, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        CredentialsSearchForProofReq search = null;
+        try {
+            payloadStats.record("proverFetchAllCredentialsForProofReq", PayloadStats.ARGUMENT, PayloadStats.size(proofRequest, extraQuery));
+            Wallet wallet = walletMap.get(walletHandle);
+            search = CredentialsSearchForProofReq.open(wallet, proofRequest, extraQuery).get();
+
+            JsonObject request = gson.fromJson(proofRequest, JsonObject.class);
+            List<String> referents = new ArrayList<>();
+            JsonObject result = new JsonObject();
+            for (String section : new String[]{"requested_attributes", "requested_predicates"}) {
+                if (request.has(section) && request.get(section).isJsonObject()) {
+                    for (Map.Entry<String, JsonElement> item : request.getAsJsonObject(section).entrySet()) {
+                        // Referents no stored credential can satisfy are answered from the index without a fetch
+                        if (credentialIndexEnabled && item.getValue().isJsonObject()
+                                && !credentialIndex.mayMatch(walletHandle, wallet, item.getValue().getAsJsonObject())) {
+                            result.add(item.getKey(), new JsonArray());
+                        } else {
+                            referents.add(item.getKey());
+                        }
+                    }
+                }
+            }
+
+            // Fetches for all referents are submitted before waiting on any of them,
+            // so libindy can work on them without a round trip per referent
+            Map<String, CompletableFuture<String>> fetches = new LinkedHashMap<>();
+            for (String referent : referents) {
+                fetches.put(referent, search.fetchNextCredentials(referent, count));
+            }
+
+            for (Map.Entry<String, CompletableFuture<String>> fetch : fetches.entrySet()) {
+                result.add(fetch.getKey(), gson.fromJson(fetch.getValue().get(), JsonElement.class));
+            }
+            String resultJson = gson.toJson(result);
+            payloadStats.record("proverFetchAllCredentialsForProofReq", PayloadStats.RESULT, PayloadStats.size(resultJson));
+            promise.resolve(resultJson);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        } finally {
+            if (search != null) {
+                try {
+                    search.close();
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to close credentials search", e);
+                }
+            }
+        }
+    }
+
     @ReactMethod
     public void proverCloseCredentialsSearchForProofReq(int searchHandle, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             CredentialsSearchForProofReq search = credentialSearchMap.get(searchHandle);
             search.close();
@@ -972,7 +2882,10 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 			String revocStates,
       Promise promise
       ) {
+        IndyLibrary.ensureLoaded();
         try {
+            payloadStats.record("proverCreateProof", PayloadStats.ARGUMENT,
+                    PayloadStats.size(proofRequest, requestedCredentials, schemas, credentialDefs, revocStates));
             Wallet wallet = walletMap.get(walletHandle);
             String proofJson = Anoncreds.proverCreateProof(
               wallet, 
@@ -983,6 +2896,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
               credentialDefs, 
               revocStates
             ).get();
+            payloadStats.record("proverCreateProof", PayloadStats.RESULT, PayloadStats.size(proofJson));
             promise.resolve(proofJson);
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -1000,7 +2914,10 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         String revocRegs, 
         Promise promise
     ) {
+        IndyLibrary.ensureLoaded();
         try{
+            payloadStats.record("verifierVerifyProof", PayloadStats.ARGUMENT,
+                    PayloadStats.size(proofRequest, proof, schemas, credentialDefs, revocRegDefs, revocRegs));
             Boolean verified = Anoncreds.verifierVerifyProof(proofRequest, proof, schemas, credentialDefs, revocRegDefs, revocRegs).get();
 
             promise.resolve(verified);
@@ -1013,6 +2930,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void generateNonce(Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String nonce = Anoncreds.generateNonce().get();
             promise.resolve(nonce);
@@ -1024,6 +2942,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void generateWalletKey(String configJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             String walletKey = Wallet.generateWalletKey(configJson).get();
             promise.resolve(walletKey);
@@ -1042,8 +2961,11 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         String credRevId,
         Promise promise
     ){
+        IndyLibrary.ensureLoaded();
         try{
+            payloadStats.record("createRevocationState", PayloadStats.ARGUMENT, PayloadStats.size(revRegDef, revRegDelta));
             String result = Anoncreds.createRevocationState(blobStorageReaderHandle,revRegDef,revRegDelta,timestamp,credRevId).get();
+            payloadStats.record("createRevocationState", PayloadStats.RESULT, PayloadStats.size(result));
             promise.resolve(result);
         }catch(Exception e){
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
@@ -1055,6 +2977,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
     
     @ReactMethod
     public void openBlobStorageReader(String type, String tailsWriterConfig, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             BlobStorageReader response = BlobStorageReader.openReader(type, tailsWriterConfig).get();
             promise.resolve(response.getBlobStorageReaderHandle());
@@ -1068,6 +2991,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void addWalletRecord(int walletHandle, String type, String id, String value, String tagsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletRecord.add(wallet, type, id, value, tagsJson).get();
@@ -1080,6 +3004,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void updateWalletRecordValue(int walletHandle, String type, String id, String value, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletRecord.updateValue(wallet, type, id, value).get();
@@ -1092,6 +3017,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void updateWalletRecordTags(int walletHandle, String type, String id, String tagsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletRecord.updateTags(wallet, type, id, tagsJson).get();
@@ -1104,6 +3030,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void addWalletRecordTags(int walletHandle, String type, String id, String tagsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletRecord.addTags(wallet, type, id, tagsJson).get();
@@ -1116,6 +3043,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void deleteWalletRecordTags(int walletHandle, String type, String id, String tagNamesJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletRecord.deleteTags(wallet, type, id, tagNamesJson).get();
@@ -1128,6 +3056,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void deleteWalletRecord(int walletHandle, String type, String id, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletRecord.delete(wallet, type, id).get();
@@ -1140,10 +3069,57 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void getWalletRecord(int walletHandle, String type, String id, String optionsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        resolveWalletRecord(walletHandle, type, id, optionsJson, false, promise);
+    }
+
+    @ReactMethod
+    public void getWalletRecordOrNull(int walletHandle, String type, String id, String optionsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        resolveWalletRecord(walletHandle, type, id, optionsJson, true, promise);
+    }
+
+    private void resolveWalletRecord(int walletHandle, String type, String id, String optionsJson, boolean nullIfNotFound, Promise promise) {
         try {
             Wallet wallet = walletMap.get(walletHandle);
             String record = WalletRecord.get(wallet, type, id, optionsJson).get();
             promise.resolve(record);
+        } catch (Exception e) {
+            if (nullIfNotFound && indyErrorCode(e) == ErrorCode.WalletItemNotFound.value()) {
+                promise.resolve(null);
+                return;
+            }
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    /**
+     * Fetches records by id in one call. Ids that are not in the wallet resolve to null entries,
+     * the result is a JSON array in the order of the ids.
+     */
+    @ReactMethod
+    public void getWalletRecords(int walletHandle, String type, ReadableArray ids, String optionsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            Wallet wallet = walletMap.get(walletHandle);
+            List<CompletableFuture<String>> lookups = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                lookups.add(WalletRecord.get(wallet, type, ids.getString(i), optionsJson));
+            }
+
+            JsonArray records = new JsonArray();
+            for (CompletableFuture<String> lookup : lookups) {
+                try {
+                    records.add(gson.fromJson(lookup.get(), JsonElement.class));
+                } catch (ExecutionException e) {
+                    if (indyErrorCode(e) != ErrorCode.WalletItemNotFound.value()) {
+                        throw e;
+                    }
+                    records.add(JsonNull.INSTANCE);
+                }
+            }
+            promise.resolve(gson.toJson(records));
         } catch (Exception e) {
             IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
             promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
@@ -1152,6 +3128,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void openWalletSearch(int walletHandle, String type, String queryJson, String optionsJson, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletSearch search = WalletSearch.open(wallet, type, queryJson, optionsJson).get();
@@ -1165,6 +3142,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void fetchWalletSearchNextRecords(int walletHandle, int walletSearchHandle, int count, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             Wallet wallet = walletMap.get(walletHandle);
             WalletSearch search = searchMap.get(walletSearchHandle);
@@ -1178,6 +3156,7 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void closeWalletSearch(int walletSearchHandle, Promise promise) {
+        IndyLibrary.ensureLoaded();
         try {
             WalletSearch search = searchMap.get(walletSearchHandle);
             WalletSearch.closeSearch(search);
@@ -1189,6 +3168,161 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
     }
 
+    private void emitEvent(String name, WritableMap payload) {
+        if (reactContext.hasActiveCatalystInstance()) {
+            reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(name, payload);
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, name);
+            }
+        };
+    }
+
+    /**
+     * Returns the lane of an open wallet. Lanes are created by the open and removed when the close starts, so
+     * calls arriving late for a closed wallet are rejected instead of starting a new lane thread.
+     */
+    private static ThreadPoolExecutor walletLane(int walletHandle) {
+        ThreadPoolExecutor lane = walletLanes.get(walletHandle);
+        if (lane == null) {
+            throw new IllegalStateException("Wallet not open: " + walletHandle);
+        }
+        return lane;
+    }
+
+    private static ThreadPoolExecutor newWalletLane(int walletHandle) {
+        return admission.newLane(namedThreadFactory("walletLane-" + walletHandle));
+    }
+
+    private static String submitToLedger(Pool pool, String request) throws Exception {
+        return ledgerTraffic.submit(pool, request).get();
+    }
+
+    private static void admit(String category, Runnable task, Promise promise) {
+        try {
+            admission.execute(category, task);
+        } catch (AdmissionControl.BusyException e) {
+            promise.reject(e.getCode(), e.toJson(), e);
+        }
+    }
+
+    /**
+     * Runs a list of non-secret record operations back to back on the wallet lane.
+     *
+     * Every operation is an object with "op" (add, updateValue, updateTags, addTags, deleteTags or delete),
+     * "type", "id" and, depending on the operation, "value", "tags" or "tagNames". Resolves a JSON object with
+     * a result per operation and aggregate timings.
+     */
+    @ReactMethod
+    public void batchWalletRecordOperations(final int walletHandle, final String operationsJson, final boolean stopOnError, final Promise promise) {
+        IndyLibrary.ensureLoaded();
+        try {
+            admission.executeOnLane(walletLane(walletHandle), new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Wallet wallet = walletMap.get(walletHandle);
+                        JsonArray operations = gson.fromJson(operationsJson, JsonArray.class);
+                        JsonArray results = new JsonArray();
+                        int failed = 0;
+                        long maxNanos = 0;
+                        long batchStart = System.nanoTime();
+
+                        for (JsonElement element : operations) {
+                            JsonObject operation = element.getAsJsonObject();
+                            JsonObject result = new JsonObject();
+                            long start = System.nanoTime();
+                            try {
+                                runWalletRecordOperation(wallet, operation);
+                                result.addProperty("ok", true);
+                            } catch (Exception e) {
+                                IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                                result.addProperty("ok", false);
+                                result.add("error", gson.toJsonTree(rejectResponse));
+                                failed++;
+                            }
+                            long elapsed = System.nanoTime() - start;
+                            maxNanos = Math.max(maxNanos, elapsed);
+                            result.addProperty("durationMs", elapsed / 1e6);
+                            results.add(result);
+
+                            if (failed > 0 && stopOnError) {
+                                break;
+                            }
+                        }
+
+                        JsonObject response = new JsonObject();
+                        response.add("results", results);
+                        response.addProperty("executed", results.size());
+                        response.addProperty("failed", failed);
+                        response.addProperty("totalMs", (System.nanoTime() - batchStart) / 1e6);
+                        response.addProperty("maxMs", maxNanos / 1e6);
+                        promise.resolve(gson.toJson(response));
+                    } catch (Exception e) {
+                        IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+                        promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+                    }
+                }
+            });
+        } catch (AdmissionControl.BusyException e) {
+            promise.reject(e.getCode(), e.toJson(), e);
+        } catch (Exception e) {
+            IndySdkRejectResponse rejectResponse = new IndySdkRejectResponse(e);
+            promise.reject(rejectResponse.getCode(), rejectResponse.toJson(), e);
+        }
+    }
+
+    private static String jsonString(JsonObject object, String member) {
+        JsonElement element = object.get(member);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        return element.isJsonPrimitive() ? element.getAsString() : element.toString();
+    }
+
+    private static void runWalletRecordOperation(Wallet wallet, JsonObject operation) throws Exception {
+        String op = jsonString(operation, "op");
+        String type = jsonString(operation, "type");
+        String id = jsonString(operation, "id");
+        switch (op == null ? "" : op) {
+            case "add":
+                WalletRecord.add(wallet, type, id, jsonString(operation, "value"), jsonString(operation, "tags")).get();
+                break;
+            case "updateValue":
+                WalletRecord.updateValue(wallet, type, id, jsonString(operation, "value")).get();
+                break;
+            case "updateTags":
+                WalletRecord.updateTags(wallet, type, id, jsonString(operation, "tags")).get();
+                break;
+            case "addTags":
+                WalletRecord.addTags(wallet, type, id, jsonString(operation, "tags")).get();
+                break;
+            case "deleteTags":
+                WalletRecord.deleteTags(wallet, type, id, jsonString(operation, "tagNames")).get();
+                break;
+            case "delete":
+                WalletRecord.delete(wallet, type, id).get();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown wallet record operation: " + op);
+        }
+    }
+
+    /**
+     * Returns Indy SDK error code of a failed call or zero when the failure did not come from Indy.
+     */
+    private static int indyErrorCode(Throwable e) {
+        if (e instanceof ExecutionException && e.getCause() instanceof IndyException) {
+            return ((IndyException) e.getCause()).getSdkErrorCode();
+        }
+        return 0;
+    }
+
     class IndySdkRejectResponse {
         private String name = "IndyError";
         private int indyCode;
@@ -1216,12 +3350,16 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
                     // So we would need to extract it ourelf as done here
                     // https://github.com/hyperledger/indy-sdk/blob/bafa3bbcca2f7ef4cf5ae2aca01b1dbf7286b924/wrappers/java/src/main/java/org/hyperledger/indy/sdk/IndyException.java#L71-L83
                     indyMessage = indyException.getSdkMessage();
-                    indyBacktrace = indyException.getSdkBacktrace();
+                    if (!backtraceSkippedCodes.contains(indyCode)) {
+                        indyBacktrace = indyException.getSdkBacktrace();
+                    }
                 } else {
                     Log.e(TAG, "Unhandled non IndyException", e);
+                    message = cause != null ? cause.getMessage() : e.getMessage();
                 }
             } else {
                 Log.e(TAG, "Unhandled non ExecutionException", e);
+                message = e.getMessage();
             }
         }
 
@@ -1234,7 +3372,6 @@ public class IndySdkModule extends ReactContextBaseJavaModule {
         }
 
         public String toJson() {
-            Gson gson = new Gson();
             return gson.toJson(this);
         }
     }
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import android.annotation.TargetApi;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs long operations as jobs on threads of their own, so they never hold up interactive calls.
+ *
+ * Listeners get an update on every state change and once a second while a job runs. A job and its
+ * result are kept until awaited, or for FINISHED_TTL_MILLIS after it finished.
+ */
+@TargetApi(24)
+class JobRunner {
+
+    private static final int THREADS = 2;
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+    private static final long FINISHED_TTL_MILLIS = 10 * 60 * 1000;
+
+    enum State { QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    interface Listener {
+        void onUpdate(Job job);
+    }
+
+    static class Job {
+        final String id;
+        final String name;
+        final long submittedAt = System.currentTimeMillis();
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        volatile State state = State.QUEUED;
+        volatile long startedAt;
+        volatile long finishedAt;
+        Future<?> task;
+
+        Job(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        long elapsedMillis() {
+            if (startedAt == 0) {
+                return 0;
+            }
+            return (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+        }
+    }
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger jobCounter = new AtomicInteger();
+    private final Listener listener;
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "indyJob-" + threadCounter.incrementAndGet());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+    private ScheduledExecutorService progressTicker;
+
+    JobRunner(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queues the work and returns the job id. The work returns the job result as string.
+     */
+    String submit(String name, final Callable<String> work) {
+        evictFinished();
+        final Job job = new Job("job-" + jobCounter.incrementAndGet(), name);
+        jobs.put(job.id, job);
+        startProgressTicker();
+        listener.onUpdate(job);
+        synchronized (job) {
+            job.task = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (!transition(job, State.QUEUED, State.RUNNING)) {
+                        return;
+                    }
+                    try {
+                        String value = work.call();
+                        if (transition(job, State.RUNNING, State.SUCCEEDED)) {
+                            job.result.complete(value);
+                        }
+                    } catch (Throwable e) {
+                        if (transition(job, State.RUNNING, State.FAILED)) {
+                            job.result.completeExceptionally(e);
+                        }
+                    }
+                }
+            });
+        }
+        return job.id;
+    }
+
+    Job get(String jobId) {
+        evictFinished();
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Drops jobs that finished more than FINISHED_TTL_MILLIS ago without being awaited.
+     */
+    private void evictFinished() {
+        long finishedBefore = System.currentTimeMillis() - FINISHED_TTL_MILLIS;
+        for (Job job : jobs.values()) {
+            if (job.finishedAt != 0 && job.finishedAt < finishedBefore) {
+                jobs.remove(job.id);
+            }
+        }
+    }
+
+    /**
+     * Drops the job once its result was handed out.
+     */
+    void forget(String jobId) {
+        jobs.remove(jobId);
+    }
+
+    /**
+     * Cancels a queued or running job. A running libindy call can't be interrupted, it completes in the
+     * background and its result is dropped. Returns false when the job already finished.
+     */
+    boolean cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        if (transition(job, State.QUEUED, State.CANCELLED) || transition(job, State.RUNNING, State.CANCELLED)) {
+            synchronized (job) {
+                job.task.cancel(false);
+            }
+            job.result.completeExceptionally(new CancellationException("Job " + jobId + " was cancelled"));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean transition(Job job, State from, State to) {
+        synchronized (job) {
+            if (job.state != from) {
+                return false;
+            }
+            job.state = to;
+            if (to == State.RUNNING) {
+                job.startedAt = System.currentTimeMillis();
+            } else if (to != State.QUEUED) {
+                job.finishedAt = System.currentTimeMillis();
+            }
+        }
+        listener.onUpdate(job);
+        if (to != State.RUNNING) {
+            stopProgressTickerIfIdle();
+        }
+        return true;
+    }
+
+    private synchronized void startProgressTicker() {
+        if (progressTicker != null) {
+            return;
+        }
+        progressTicker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "indyJobProgress");
+            }
+        });
+        progressTicker.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                for (Job job : jobs.values()) {
+                    if (job.state == State.RUNNING) {
+                        listener.onUpdate(job);
+                    }
+                }
+            }
+        }, PROGRESS_INTERVAL_MILLIS, PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopProgressTickerIfIdle() {
+        if (progressTicker == null) {
+            return;
+        }
+        for (Job job : jobs.values()) {
+            if (job.state == State.QUEUED || job.state == State.RUNNING) {
+                return;
+            }
+        }
+        progressTicker.shutdown();
+        progressTicker = null;
+    }
+}
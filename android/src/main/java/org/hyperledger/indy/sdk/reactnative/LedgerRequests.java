@@ -0,0 +1,211 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.hyperledger.indy.sdk.ledger.Ledger;
+import org.hyperledger.indy.sdk.ledger.LedgerResults;
+
+/**
+ * Builds ledger requests and parses ledger replies by request kind, so whole ledger operations can
+ * run on the native side.
+ *
+ * Request kinds are the ledger transaction type names, e.g. NYM, SCHEMA, GET_CRED_DEF. Params are the
+ * arguments of the matching build*Request call in snake case.
+ */
+class LedgerRequests {
+
+    private static final Gson gson = new Gson();
+
+    /**
+     * The pool answered with REJECT or REQNACK, e.g. the submitter lacks the role for the transaction.
+     */
+    static class RejectedException extends Exception {
+        final String op;
+        final String reason;
+
+        RejectedException(String op, String reason) {
+            super("Ledger " + op + ": " + reason);
+            this.op = op;
+            this.reason = reason;
+        }
+
+        String toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", "IndyLedgerRejected");
+            json.addProperty("message", getMessage());
+            json.addProperty("indyCode", 0);
+            json.addProperty("op", op);
+            json.addProperty("reason", reason);
+            return gson.toJson(json);
+        }
+    }
+
+    static String build(String kind, String submitterDid, JsonObject params) throws Exception {
+        switch (kind) {
+            case "NYM":
+                return Ledger.buildNymRequest(submitterDid, string(params, "dest"), string(params, "verkey"),
+                        string(params, "alias"), string(params, "role")).get();
+            case "ATTRIB":
+                return Ledger.buildAttribRequest(submitterDid, string(params, "dest"), string(params, "hash"),
+                        string(params, "raw"), string(params, "enc")).get();
+            case "SCHEMA":
+                return Ledger.buildSchemaRequest(submitterDid, string(params, "data")).get();
+            case "CRED_DEF":
+                return Ledger.buildCredDefRequest(submitterDid, string(params, "data")).get();
+            case "REVOC_REG_DEF":
+                return Ledger.buildRevocRegDefRequest(submitterDid, string(params, "data")).get();
+            case "REVOC_REG_ENTRY":
+                return Ledger.buildRevocRegEntryRequest(submitterDid, string(params, "revoc_reg_def_id"),
+                        string(params, "rev_def_type"), string(params, "value")).get();
+            case "GET_NYM":
+                return Ledger.buildGetNymRequest(submitterDid, string(params, "dest")).get();
+            case "GET_ATTRIB":
+                return Ledger.buildGetAttribRequest(submitterDid, string(params, "dest"), string(params, "raw"),
+                        string(params, "hash"), string(params, "enc")).get();
+            case "GET_SCHEMA":
+                return Ledger.buildGetSchemaRequest(submitterDid, string(params, "id")).get();
+            case "GET_CRED_DEF":
+                return Ledger.buildGetCredDefRequest(submitterDid, string(params, "id")).get();
+            case "GET_REVOC_REG_DEF":
+                return Ledger.buildGetRevocRegDefRequest(submitterDid, string(params, "id")).get();
+            case "GET_REVOC_REG":
+                return Ledger.buildGetRevocRegRequest(submitterDid, string(params, "revoc_reg_def_id"),
+                        params.get("timestamp").getAsInt()).get();
+            case "GET_REVOC_REG_DELTA":
+                return Ledger.buildGetRevocRegDeltaRequest(submitterDid, string(params, "revoc_reg_def_id"),
+                        params.has("from") ? params.get("from").getAsInt() : 0, params.get("to").getAsInt()).get();
+            case "GET_TXN":
+                return Ledger.buildGetTxnRequest(submitterDid, string(params, "ledger_type"),
+                        params.get("seq_no").getAsInt()).get();
+            case "GET_TXN_AUTHR_AGRMT":
+                return Ledger.buildGetTxnAuthorAgreementRequest(submitterDid, string(params, "data")).get();
+            default:
+                throw new IllegalArgumentException("Unsupported ledger request kind: " + kind);
+        }
+    }
+
+    /**
+     * Parses a reply to a read request with the matching Ledger.parseGet*Response. Replies of kinds without
+     * a parser are returned unchanged.
+     *
+     * Parsed objects are returned as JSON {"id", "json", "timestamp"} with the ledger object inlined
+     * as JSON, GET_NYM as the parsed NYM data.
+     */
+    static String parse(String kind, String response) throws Exception {
+        switch (kind) {
+            case "GET_NYM":
+                return Ledger.parseGetNymResponse(response).get();
+            case "GET_SCHEMA":
+                return toJson(Ledger.parseGetSchemaResponse(response).get());
+            case "GET_CRED_DEF":
+                return toJson(Ledger.parseGetCredDefResponse(response).get());
+            case "GET_REVOC_REG_DEF":
+                return toJson(Ledger.parseGetRevocRegDefResponse(response).get());
+            case "GET_REVOC_REG":
+                return toJson(Ledger.parseGetRevocRegResponse(response).get());
+            case "GET_REVOC_REG_DELTA":
+                return toJson(Ledger.parseGetRevocRegDeltaResponse(response).get());
+            default:
+                return response;
+        }
+    }
+
+    /**
+     * Parses a reply to a write request into JSON {"seqNo", "txnTime", "txnId", "data"} taken from the
+     * transaction metadata and data of the reply.
+     */
+    static String parseWrite(String response) {
+        JsonObject result = gson.fromJson(response, JsonObject.class).getAsJsonObject("result");
+        JsonObject parsed = new JsonObject();
+        if (result == null) {
+            return gson.toJson(parsed);
+        }
+        // Replies before node 1.4 carry the metadata in the result itself
+        JsonObject metadata = result.has("txnMetadata") ? result.getAsJsonObject("txnMetadata") : result;
+        JsonObject txn = result.has("txn") ? result.getAsJsonObject("txn") : null;
+        parsed.add("seqNo", metadata.get("seqNo"));
+        parsed.add("txnTime", metadata.get("txnTime"));
+        parsed.add("txnId", metadata.get("txnId"));
+        parsed.add("data", txn != null ? txn.get("data") : result.get("data"));
+        return gson.toJson(parsed);
+    }
+
+    /**
+     * Throws RejectedException when the reply is a REJECT or REQNACK, the pool answers those with op and
+     * reason instead of a result.
+     */
+    static void checkReply(String response) throws RejectedException {
+        JsonElement reply = gson.fromJson(response, JsonElement.class);
+        if (reply == null || !reply.isJsonObject()) {
+            return;
+        }
+        String op = string(reply.getAsJsonObject(), "op");
+        if ("REJECT".equals(op) || "REQNACK".equals(op)) {
+            throw new RejectedException(op, string(reply.getAsJsonObject(), "reason"));
+        }
+    }
+
+    /**
+     * Picks members of a JSON document by dot separated paths, e.g. "result.txnMetadata.seqNo". Returns JSON
+     * object keyed by path, paths that don't resolve map to null.
+     */
+    static String project(String json, JsonArray paths) {
+        JsonElement document = gson.fromJson(json, JsonElement.class);
+        JsonObject projection = new JsonObject();
+        for (JsonElement path : paths) {
+            JsonElement element = document;
+            for (String member : path.getAsString().split("\\.")) {
+                element = element != null && element.isJsonObject() ? element.getAsJsonObject().get(member) : null;
+            }
+            projection.add(path.getAsString(), element);
+        }
+        return gson.toJson(projection);
+    }
+
+    static boolean isRead(String kind) {
+        return kind.startsWith("GET_");
+    }
+
+    private static String toJson(LedgerResults.ParseResponseResult result) {
+        JsonObject parsed = new JsonObject();
+        parsed.addProperty("id", result.getId());
+        parsed.add("json", gson.fromJson(result.getObjectJson(), JsonElement.class));
+        return gson.toJson(parsed);
+    }
+
+    private static String toJson(LedgerResults.ParseRegistryResponseResult result) {
+        JsonObject parsed = new JsonObject();
+        parsed.addProperty("id", result.getId());
+        parsed.add("json", gson.fromJson(result.getObjectJson(), JsonElement.class));
+        parsed.addProperty("timestamp", result.getTimestamp());
+        return gson.toJson(parsed);
+    }
+
+    // Nested objects, e.g. schema data, are passed to libindy as JSON strings
+    private static String string(JsonObject params, String member) {
+        JsonElement element = params.get(member);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        return element.isJsonPrimitive() ? element.getAsString() : element.toString();
+    }
+}
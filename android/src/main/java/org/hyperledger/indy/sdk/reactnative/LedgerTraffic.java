@@ -0,0 +1,252 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.hyperledger.indy.sdk.ledger.Ledger;
+import org.hyperledger.indy.sdk.pool.Pool;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Records ledger request and reply pairs to a JSON lines file and serves them back without a pool.
+ *
+ * Requests are matched without reqId and signatures, which differ between runs, and without the extra
+ * ignored members given to the replay. Anything else derived from the run has to be reproduced for a
+ * request to match: DIDs created without a seed differ in every run, as does the time of a TAA
+ * acceptance on a later day. Create DIDs from fixed seeds or ignore the members holding them, e.g.
+ * "operation.dest" and "taaAcceptance.time".
+ *
+ * A request recorded more than once is answered with its replies in recorded order, the last one
+ * repeats. Replay answers after the recorded duration times the time scale.
+ */
+class LedgerTraffic {
+
+    private static final String TAG = "IndySdk";
+    private static final List<String> VOLATILE_MEMBERS = Arrays.asList("reqId", "signature", "signatures");
+
+    private static final Gson gson = new Gson();
+    private static final ScheduledExecutorService replayExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "indy-ledgerReplay");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private Writer recording;
+    private Map<String, List<Exchange>> replay;
+    private final Map<String, Integer> replayPositions = new HashMap<>();
+    private double timeScale = 1;
+    // Dotted member paths left out of the matching, in addition to the volatile members
+    private List<String> ignoredMembers = VOLATILE_MEMBERS;
+
+    private static class Exchange {
+        String request;
+        String response;
+        double durationMs;
+    }
+
+    synchronized void startRecording(String path) throws IOException {
+        stop();
+        recording = new OutputStreamWriter(new FileOutputStream(path, true), StandardCharsets.UTF_8);
+    }
+
+    synchronized void startReplay(String path, double timeScale, List<String> ignoredMembers) throws IOException {
+        stop();
+        List<String> ignored = new ArrayList<>(VOLATILE_MEMBERS);
+        ignored.addAll(ignoredMembers);
+        this.ignoredMembers = ignored;
+        Map<String, List<Exchange>> exchanges = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                Exchange exchange = gson.fromJson(line, Exchange.class);
+                String key = key(exchange.request);
+                if (!exchanges.containsKey(key)) {
+                    exchanges.put(key, new ArrayList<Exchange>());
+                }
+                exchanges.get(key).add(exchange);
+            }
+        }
+        this.replay = exchanges;
+        this.timeScale = timeScale;
+    }
+
+    synchronized void stop() throws IOException {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        replay = null;
+        replayPositions.clear();
+    }
+
+    private synchronized void stopRecording() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Closing the ledger traffic recording failed", e);
+        }
+        recording = null;
+    }
+
+    synchronized boolean isReplaying() {
+        return replay != null;
+    }
+
+    void record(String request, String response, double durationMs) throws IOException {
+        Exchange exchange = new Exchange();
+        exchange.request = request;
+        exchange.response = response;
+        exchange.durationMs = durationMs;
+        String line = gson.toJson(exchange);
+        synchronized (this) {
+            if (recording != null) {
+                recording.write(line);
+                recording.write('\n');
+                recording.flush();
+            }
+        }
+    }
+
+    /**
+     * Submits a request to the pool, or answers it from the recording being replayed. Records the exchange
+     * while recording. Every ledger submission of the module goes through here.
+     *
+     * A failing write of the recording doesn't fail the submission, it is logged and the recording stops.
+     */
+    CompletableFuture<String> submit(Pool pool, final String request) throws Exception {
+        if (isReplaying()) {
+            return replay(request);
+        }
+        final long start = System.nanoTime();
+        return Ledger.submitRequest(pool, request).thenApply(new Function<String, String>() {
+            @Override
+            public String apply(String response) {
+                try {
+                    record(request, response, (System.nanoTime() - start) / 1e6);
+                } catch (IOException e) {
+                    Log.w(TAG, "Ledger traffic recording failed, recording stopped", e);
+                    stopRecording();
+                }
+                return response;
+            }
+        });
+    }
+
+    /**
+     * Returns the recorded reply to the request, completed after its scaled recorded duration.
+     */
+    CompletableFuture<String> replay(String request) {
+        Exchange exchange;
+        double scale;
+        synchronized (this) {
+            String key = key(request);
+            List<Exchange> exchanges = replay == null ? null : replay.get(key);
+            if (exchanges == null) {
+                throw new IllegalStateException("No recorded reply for ledger request: " + request);
+            }
+            int position = replayPositions.containsKey(key) ? replayPositions.get(key) : 0;
+            exchange = exchanges.get(Math.min(position, exchanges.size() - 1));
+            replayPositions.put(key, position + 1);
+            scale = timeScale;
+        }
+        final String response = exchange.response;
+        long delay = (long) (exchange.durationMs * scale);
+        if (delay <= 0) {
+            return CompletableFuture.completedFuture(response);
+        }
+        // Replies are delayed without holding a thread, so requests in flight together stay concurrent
+        final CompletableFuture<String> reply = new CompletableFuture<>();
+        replayExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                reply.complete(response);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return reply;
+    }
+
+    // Called with the lock held
+    private String key(String request) {
+        JsonObject json = gson.fromJson(request, JsonObject.class);
+        for (String member : ignoredMembers) {
+            remove(json, member.split("\\."));
+        }
+        // Member order must not matter
+        return gson.toJson(sorted(json));
+    }
+
+    private static void remove(JsonObject json, String[] path) {
+        JsonObject parent = json;
+        for (int i = 0; i < path.length - 1; i++) {
+            JsonElement child = parent.get(path[i]);
+            if (child == null || !child.isJsonObject()) {
+                return;
+            }
+            parent = child.getAsJsonObject();
+        }
+        parent.remove(path[path.length - 1]);
+    }
+
+    private static JsonElement sorted(JsonElement element) {
+        if (!element.isJsonObject()) {
+            return element;
+        }
+        Map<String, JsonElement> members = new TreeMap<>();
+        for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+            members.put(member.getKey(), sorted(member.getValue()));
+        }
+        JsonObject result = new JsonObject();
+        for (Map.Entry<String, JsonElement> member : members.entrySet()) {
+            result.add(member.getKey(), member.getValue());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache with optional time to live and hit counters.
+ *
+ * Keys are scoped by wallet handle so all entries of a wallet can be dropped when it's closed.
+ */
+class LruCache<V> {
+
+    private final String name;
+    private volatile long ttlMillis;
+    private volatile int capacity;
+    private long hits;
+    private long misses;
+
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    private static class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param ttlMillis time after which an entry is no longer served, zero or less for no expiry
+     */
+    LruCache(String name, int capacity, long ttlMillis) {
+        this.name = name;
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+    }
+
+    private static String key(int walletHandle, String key) {
+        return walletHandle + ":" + key;
+    }
+
+    synchronized V get(int walletHandle, String key) {
+        Entry<V> entry = entries.get(key(walletHandle, key));
+        if (entry != null && entry.expiresAt > 0 && entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key(walletHandle, key));
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    synchronized void put(int walletHandle, String key, V value) {
+        if (capacity <= 0) {
+            return;
+        }
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : 0;
+        entries.put(key(walletHandle, key), new Entry<>(value, expiresAt));
+    }
+
+    synchronized void remove(int walletHandle, String key) {
+        entries.remove(key(walletHandle, key));
+    }
+
+    synchronized void invalidate(int walletHandle) {
+        String prefix = walletHandle + ":";
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+        Iterator<String> keys = entries.keySet().iterator();
+        while (entries.size() > Math.max(capacity, 0) && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+    }
+}
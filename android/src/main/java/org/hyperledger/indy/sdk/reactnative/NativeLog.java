@@ -0,0 +1,212 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sun.jna.Callback;
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Captures libindy log entries in a fixed size in-memory ring, filtered by level per module.
+ *
+ * libindy accepts one logger per process and the Java wrapper sets its own in LibIndy.init(), so the
+ * capture logger has to be installed before the library is loaded by the wrapper.
+ *
+ * The ring is written without locks: a writer claims a sequence number and stores its entry in the slot
+ * of that number, readers skip slots overwritten meanwhile. Filtered out entries are not formatted by
+ * libindy at all.
+ */
+class NativeLog {
+
+    // libindy levels, 1 is error and 5 trace
+    private static final String[] LEVELS = {"off", "error", "warn", "info", "debug", "trace"};
+    private static final Gson gson = new Gson();
+
+    private interface EnabledCallback extends Callback {
+        boolean callback(Pointer context, int level, String target);
+    }
+
+    private interface LogCallback extends Callback {
+        void callback(Pointer context, int level, String target, String message, String modulePath, String file, int line);
+    }
+
+    private interface FlushCallback extends Callback {
+        void callback(Pointer context);
+    }
+
+    private interface Api extends Library {
+        int indy_set_logger(Pointer context, EnabledCallback enabled, LogCallback log, FlushCallback flush);
+    }
+
+    private static class Entry {
+        final long sequence;
+        final long time;
+        final int level;
+        final String target;
+        final String message;
+        final String file;
+        final int line;
+
+        Entry(long sequence, int level, String target, String message, String file, int line) {
+            this.sequence = sequence;
+            this.time = System.currentTimeMillis();
+            this.level = level;
+            this.target = target;
+            this.message = message;
+            this.file = file;
+            this.line = line;
+        }
+    }
+
+    private static volatile boolean requested = false;
+    private static volatile boolean installed = false;
+    private static volatile AtomicReferenceArray<Entry> ring = new AtomicReferenceArray<>(1);
+    private static final AtomicLong sequence = new AtomicLong();
+    // Module path prefixes to maximum level, "" holds the default
+    private static volatile Map<String, Integer> levels = Collections.singletonMap("", 2);
+    private static final Map<String, Integer> targetLevels = new ConcurrentHashMap<>();
+
+    // Held for the lifetime of the process, libindy calls them from its threads
+    private static final EnabledCallback enabledCallback = new EnabledCallback() {
+        @Override
+        public boolean callback(Pointer context, int level, String target) {
+            return level <= maxLevel(target);
+        }
+    };
+
+    private static final LogCallback logCallback = new LogCallback() {
+        @Override
+        public void callback(Pointer context, int level, String target, String message, String modulePath, String file, int line) {
+            append(level, target, message, file, line);
+        }
+    };
+
+    private static final FlushCallback flushCallback = new FlushCallback() {
+        @Override
+        public void callback(Pointer context) {
+        }
+    };
+
+    /**
+     * Requests capture into a ring of the given capacity. Returns false when libindy was loaded without
+     * capture already, it has to be requested before the first Indy call of the process.
+     */
+    static synchronized boolean request(int capacity, Map<String, String> levelNames) {
+        ring = new AtomicReferenceArray<>(Math.max(capacity, 1));
+        setLevels(levelNames);
+        requested = true;
+        return installed || !IndyLibrary.isLoaded();
+    }
+
+    /**
+     * Installs the capture logger if requested. Called right before the library is loaded by the wrapper.
+     */
+    static synchronized void installIfRequested() {
+        if (!requested || installed) {
+            return;
+        }
+        // Same call as the wrapper uses, available in JNA 4 and 5
+        Api api = Native.loadLibrary("indy", Api.class);
+        installed = api.indy_set_logger(null, enabledCallback, logCallback, flushCallback) == 0;
+    }
+
+    static boolean isInstalled() {
+        return installed;
+    }
+
+    static void append(int level, String target, String message, String file, int line) {
+        AtomicReferenceArray<Entry> entries = ring;
+        long next = sequence.getAndIncrement();
+        entries.set((int) (next % entries.length()), new Entry(next, level, target, message, file, line));
+    }
+
+    /**
+     * Sets maximum levels by module path prefix, e.g. {"": "warn", "indy::services::pool": "debug"}.
+     */
+    static void setLevels(Map<String, String> levelNames) {
+        Map<String, Integer> parsed = new HashMap<>();
+        parsed.put("", 2);
+        for (Map.Entry<String, String> entry : levelNames.entrySet()) {
+            int level = Arrays.asList(LEVELS).indexOf(entry.getValue().toLowerCase());
+            if (level < 0) {
+                throw new IllegalArgumentException("Unknown log level: " + entry.getValue());
+            }
+            parsed.put(entry.getKey(), level);
+        }
+        levels = parsed;
+        targetLevels.clear();
+    }
+
+    static int maxLevel(String target) {
+        if (target == null) {
+            target = "";
+        }
+        Integer cached = targetLevels.get(target);
+        if (cached != null) {
+            return cached;
+        }
+        // Longest matching prefix wins
+        String match = "";
+        for (String prefix : levels.keySet()) {
+            if (target.startsWith(prefix) && prefix.length() > match.length()) {
+                match = prefix;
+            }
+        }
+        int level = levels.get(match);
+        targetLevels.put(target, level);
+        return level;
+    }
+
+    /**
+     * Returns JSON array of up to maxEntries of the most recent entries, oldest first.
+     */
+    static String dump(int maxEntries) {
+        AtomicReferenceArray<Entry> entries = ring;
+        long end = sequence.get();
+        long start = Math.max(0, end - Math.min(maxEntries, entries.length()));
+        JsonArray result = new JsonArray();
+        for (long i = start; i < end; i++) {
+            Entry entry = entries.get((int) (i % entries.length()));
+            // Slot was overwritten by a newer entry or the ring was replaced
+            if (entry == null || entry.sequence != i) {
+                continue;
+            }
+            JsonObject json = new JsonObject();
+            json.addProperty("sequence", entry.sequence);
+            json.addProperty("time", entry.time);
+            json.addProperty("level", LEVELS[Math.min(Math.max(entry.level, 0), LEVELS.length - 1)]);
+            json.addProperty("target", entry.target);
+            json.addProperty("message", entry.message);
+            json.addProperty("file", entry.file);
+            json.addProperty("line", entry.line);
+            result.add(json);
+        }
+        return gson.toJson(result);
+    }
+}
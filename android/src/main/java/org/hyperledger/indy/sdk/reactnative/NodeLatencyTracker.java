@@ -0,0 +1,319 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a moving average of the reply latency of each pool node and derives the preordered_nodes and
+ * number_read_nodes pool config from it.
+ *
+ * libindy doesn't tell which node answered a read, so the reads of a pool opened with a single read
+ * node are credited to the first preordered node. Nodes with few or old samples are put first in turn,
+ * one per open, to measure them. A node that timed out is put last and only measured again after a
+ * backoff that doubles with every further timeout.
+ *
+ * Pure Java without Android or libindy dependencies, measurements are fed in by the caller.
+ */
+class NodeLatencyTracker {
+
+    // Weight of a new sample in the moving average
+    private static final double ALPHA = 0.3;
+    // Nodes within this factor of the fastest node are read from in parallel
+    private static final double READ_NODES_SPREAD = 1.5;
+    private static final int MAX_READ_NODES = 3;
+    // A node is put first until it has this many samples, and again once its last sample is this old
+    private static final int EXPLORE_SAMPLES = 5;
+    private static final long EXPLORE_AFTER_MILLIS = 24 * 60 * 60 * 1000;
+    private static final long FAILURE_BACKOFF_MILLIS = 60 * 1000;
+    private static final long MAX_FAILURE_BACKOFF_MILLIS = 6 * 60 * 60 * 1000;
+
+    private static final Gson gson = new Gson();
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final AtomicInteger reads = new AtomicInteger();
+    private volatile int sampleEvery = 1;
+    // Measurements changed since the last snapshot
+    private boolean dirty;
+
+    static class Node {
+        double averageMillis;
+        long samples;
+        long failures;
+        long lastSampleAt;
+        // Timeouts since the last reply, the node isn't measured again before retryAt
+        int consecutiveFailures;
+        long retryAt;
+    }
+
+    /**
+     * Reads the node aliases of a genesis transactions file, one JSON transaction per line.
+     */
+    static List<String> genesisNodeNames(String path) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JsonObject txn = gson.fromJson(line, JsonObject.class);
+                // Current format nests the node data in txn.data, the old one has it at the top
+                JsonObject data = txn.has("txn") ? txn.getAsJsonObject("txn").getAsJsonObject("data") : txn;
+                JsonElement alias = data != null && data.has("data") ? data.getAsJsonObject("data").get("alias") : null;
+                if (alias != null && !alias.isJsonNull()) {
+                    names.add(alias.getAsString());
+                }
+            }
+        }
+        return names;
+    }
+
+    void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = Math.max(sampleEvery, 1);
+    }
+
+    /**
+     * Tells whether to credit the current read, every sampleEvery-th read is.
+     */
+    boolean shouldSample() {
+        return reads.incrementAndGet() % sampleEvery == 0;
+    }
+
+    synchronized void addNode(String name) {
+        if (!nodes.containsKey(name)) {
+            nodes.put(name, new Node());
+        }
+    }
+
+    synchronized List<String> nodeNames() {
+        return new ArrayList<>(nodes.keySet());
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    synchronized void record(String name, double millis) {
+        addNode(name);
+        Node node = nodes.get(name);
+        node.averageMillis = node.samples == 0 ? millis : ALPHA * millis + (1 - ALPHA) * node.averageMillis;
+        node.samples++;
+        node.lastSampleAt = now();
+        node.consecutiveFailures = 0;
+        node.retryAt = 0;
+        dirty = true;
+    }
+
+    /**
+     * Counts a timeout, the node drops behind all other nodes until it answers again. It isn't measured
+     * again for FAILURE_BACKOFF_MILLIS, doubled with every further timeout up to MAX_FAILURE_BACKOFF_MILLIS.
+     */
+    synchronized void recordFailure(String name) {
+        addNode(name);
+        Node node = nodes.get(name);
+        node.failures++;
+        node.consecutiveFailures++;
+        long backoff = FAILURE_BACKOFF_MILLIS << Math.min(node.consecutiveFailures - 1, 20);
+        node.retryAt = now() + Math.min(backoff, MAX_FAILURE_BACKOFF_MILLIS);
+        dirty = true;
+    }
+
+    private static boolean isFailing(Node node) {
+        return node.consecutiveFailures > 0;
+    }
+
+    /**
+     * Returns the node to measure next: the one with the fewest samples while some node has less than
+     * EXPLORE_SAMPLES or timed out last and is past its backoff, else the one with the oldest sample if
+     * that's older than EXPLORE_AFTER_MILLIS. Nodes within their backoff are skipped. Null when no node
+     * needs measuring.
+     */
+    synchronized String nodeToExplore() {
+        long now = now();
+        String result = null;
+        for (Map.Entry<String, Node> entry : nodes.entrySet()) {
+            Node node = entry.getValue();
+            if (node.retryAt > now) {
+                continue;
+            }
+            if ((node.samples < EXPLORE_SAMPLES || isFailing(node))
+                    && (result == null || node.samples < nodes.get(result).samples)) {
+                result = entry.getKey();
+            }
+        }
+        if (result != null) {
+            return result;
+        }
+        long staleBefore = now - EXPLORE_AFTER_MILLIS;
+        for (Map.Entry<String, Node> entry : nodes.entrySet()) {
+            if (entry.getValue().lastSampleAt < staleBefore
+                    && (result == null || entry.getValue().lastSampleAt < nodes.get(result).lastSampleAt)) {
+                result = entry.getKey();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Measured nodes ordered by average latency, fastest first. Nodes that timed out last come after
+     * the others.
+     */
+    synchronized List<String> preorderedNodes() {
+        List<String> measured = new ArrayList<>();
+        for (Map.Entry<String, Node> entry : nodes.entrySet()) {
+            if (entry.getValue().samples > 0) {
+                measured.add(entry.getKey());
+            }
+        }
+        Collections.sort(measured, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                Node nodeA = nodes.get(a);
+                Node nodeB = nodes.get(b);
+                if (isFailing(nodeA) != isFailing(nodeB)) {
+                    return isFailing(nodeA) ? 1 : -1;
+                }
+                return Double.compare(nodeA.averageMillis, nodeB.averageMillis);
+            }
+        });
+        return measured;
+    }
+
+    /**
+     * Number of nodes within READ_NODES_SPREAD of the fastest one, at least one and at most MAX_READ_NODES.
+     * Returns zero when nothing was measured yet.
+     */
+    synchronized int numberReadNodes() {
+        List<String> ordered = preorderedNodes();
+        if (ordered.isEmpty()) {
+            return 0;
+        }
+        double fastest = nodes.get(ordered.get(0)).averageMillis;
+        int count = 0;
+        for (String name : ordered) {
+            if (count < MAX_READ_NODES && !isFailing(nodes.get(name))
+                    && nodes.get(name).averageMillis <= fastest * READ_NODES_SPREAD) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds preordered_nodes and number_read_nodes to a pool config unless the caller set them. A node that
+     * needs measuring goes first and is read from alone.
+     */
+    synchronized String applyTo(String poolConfig) {
+        JsonObject config = poolConfig == null ? new JsonObject() : gson.fromJson(poolConfig, JsonObject.class);
+        List<String> ordered = new ArrayList<>();
+        List<String> failing = new ArrayList<>();
+        for (String name : preorderedNodes()) {
+            (isFailing(nodes.get(name)) ? failing : ordered).add(name);
+        }
+        for (Map.Entry<String, Node> entry : nodes.entrySet()) {
+            if (entry.getValue().samples == 0) {
+                (isFailing(entry.getValue()) ? failing : ordered).add(entry.getKey());
+            }
+        }
+        ordered.addAll(failing);
+        if (ordered.isEmpty()) {
+            return poolConfig;
+        }
+        String explored = nodeToExplore();
+        if (explored != null) {
+            ordered.remove(explored);
+            ordered.add(0, explored);
+        }
+        if (!config.has("preordered_nodes")) {
+            JsonArray preordered = new JsonArray();
+            for (String name : ordered) {
+                preordered.add(name);
+            }
+            config.add("preordered_nodes", preordered);
+        }
+        if (!config.has("number_read_nodes")) {
+            config.addProperty("number_read_nodes", explored != null ? 1 : Math.max(numberReadNodes(), 1));
+        }
+        return gson.toJson(config);
+    }
+
+    /**
+     * Returns the node reads of a pool opened with the config are credited to, null unless the config
+     * reads from a single preordered node.
+     */
+    static String creditedNode(String poolConfig) {
+        if (poolConfig == null) {
+            return null;
+        }
+        JsonObject config = gson.fromJson(poolConfig, JsonObject.class);
+        JsonElement readNodes = config.get("number_read_nodes");
+        JsonElement preordered = config.get("preordered_nodes");
+        if (readNodes == null || readNodes.getAsInt() != 1 || preordered == null
+                || !preordered.isJsonArray() || preordered.getAsJsonArray().size() == 0) {
+            return null;
+        }
+        return preordered.getAsJsonArray().get(0).getAsString();
+    }
+
+    /**
+     * Drops all measurements, the node names are kept.
+     */
+    synchronized void reset() {
+        for (String name : nodes.keySet()) {
+            nodes.put(name, new Node());
+        }
+        dirty = false;
+    }
+
+    synchronized String toJson() {
+        return gson.toJson(nodes);
+    }
+
+    /**
+     * Returns the measurements to persist, null when nothing changed since the last snapshot.
+     */
+    synchronized String snapshotIfChanged() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+        return toJson();
+    }
+
+    synchronized void load(String json) {
+        JsonObject saved = gson.fromJson(json, JsonObject.class);
+        for (String name : saved.keySet()) {
+            nodes.put(name, gson.fromJson(saved.get(name), Node.class));
+        }
+    }
+}
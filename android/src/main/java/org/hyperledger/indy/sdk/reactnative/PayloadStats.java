@@ -0,0 +1,162 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Histograms of the sizes of arguments and results crossing the bridge, per call site tag. Sizes are the
+ * length of the bridge encoding: characters for strings, and for byte buffers, which cross as arrays of
+ * ints, the length of the array written as JSON.
+ *
+ * A single transfer above the warning threshold is reported to the listener.
+ */
+class PayloadStats {
+
+    static final String ARGUMENT = "argument";
+    static final String RESULT = "result";
+
+    private static final Gson gson = new Gson();
+
+    // Upper bounds of the buckets, the last bucket has none
+    private static final long[] BUCKET_BOUNDS = {1 << 10, 4 << 10, 16 << 10, 64 << 10, 256 << 10, 1 << 20};
+    private static final String[] BUCKET_NAMES = {"<1K", "<4K", "<16K", "<64K", "<256K", "<1M", ">=1M"};
+
+    interface Listener {
+        void onLargeTransfer(String tag, String direction, long size, long threshold);
+    }
+
+    private static class Histogram {
+        final long[] buckets = new long[BUCKET_NAMES.length];
+        long count;
+        long total;
+        long max;
+
+        void add(long size) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && size >= BUCKET_BOUNDS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket]++;
+            count++;
+            total += size;
+            max = Math.max(max, size);
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("count", count);
+            json.addProperty("total", total);
+            json.addProperty("max", max);
+            JsonObject histogram = new JsonObject();
+            for (int i = 0; i < buckets.length; i++) {
+                histogram.addProperty(BUCKET_NAMES[i], buckets[i]);
+            }
+            json.add("buckets", histogram);
+            return json;
+        }
+    }
+
+    // Keyed by tag, then direction
+    private final Map<String, Map<String, Histogram>> histograms = new TreeMap<>();
+    private volatile long warningThreshold = 256 << 10;
+    private volatile Listener listener;
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the size above which a single transfer is reported, 0 turns the reports off.
+     */
+    void setWarningThreshold(long warningThreshold) {
+        this.warningThreshold = warningThreshold;
+    }
+
+    void record(String tag, String direction, long size) {
+        synchronized (this) {
+            Map<String, Histogram> directions = histograms.get(tag);
+            if (directions == null) {
+                directions = new TreeMap<>();
+                histograms.put(tag, directions);
+            }
+            Histogram histogram = directions.get(direction);
+            if (histogram == null) {
+                histogram = new Histogram();
+                directions.put(direction, histogram);
+            }
+            histogram.add(size);
+        }
+        long threshold = warningThreshold;
+        Listener listener = this.listener;
+        if (threshold > 0 && size > threshold && listener != null) {
+            listener.onLargeTransfer(tag, direction, size, threshold);
+        }
+    }
+
+    synchronized void reset() {
+        histograms.clear();
+    }
+
+    /**
+     * Returns JSON {"warningThreshold", "tags"} with tags keyed by call site tag, then direction, holding
+     * count, total, max and buckets.
+     */
+    synchronized String getStats() {
+        JsonObject tags = new JsonObject();
+        for (Map.Entry<String, Map<String, Histogram>> tag : histograms.entrySet()) {
+            JsonObject directions = new JsonObject();
+            for (Map.Entry<String, Histogram> direction : tag.getValue().entrySet()) {
+                directions.add(direction.getKey(), direction.getValue().toJson());
+            }
+            tags.add(tag.getKey(), directions);
+        }
+        JsonObject stats = new JsonObject();
+        stats.addProperty("warningThreshold", warningThreshold);
+        stats.add("tags", tags);
+        return gson.toJson(stats);
+    }
+
+    static long size(String... values) {
+        long size = 0;
+        for (String value : values) {
+            if (value != null) {
+                size += value.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Length of the buffer written as a JSON array of signed ints, e.g. [12,-3].
+     */
+    static long size(byte[] buffer) {
+        if (buffer == null) {
+            return 0;
+        }
+        long size = 2 + Math.max(buffer.length - 1, 0);
+        for (byte b : buffer) {
+            int value = Math.abs(b);
+            size += (b < 0 ? 1 : 0) + (value >= 100 ? 3 : value >= 10 ? 2 : 1);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.hyperledger.indy.sdk.anoncreds.Anoncreds;
+import org.hyperledger.indy.sdk.ledger.Ledger;
+import org.hyperledger.indy.sdk.ledger.LedgerResults;
+import org.hyperledger.indy.sdk.pool.Pool;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically fetches the revocation registry deltas of tracked registries and merges them into
+ * a delta from the registry start, so proof creation finds a fresh delta without a ledger round trip.
+ *
+ * A refresh is skipped while the device doesn't meet the configured network and battery constraints.
+ */
+@TargetApi(24)
+class RevocationPrefetcher {
+
+    private static final String TAG = "IndySdk";
+
+    private final Gson gson = new Gson();
+    private final LedgerTraffic ledgerTraffic;
+    private final Set<String> tracked = ConcurrentHashMap.newKeySet();
+    private final Map<String, Delta> deltas = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+    private Context context;
+    private Pool pool;
+    private int poolHandle;
+    private Options options;
+
+    RevocationPrefetcher(LedgerTraffic ledgerTraffic) {
+        this.ledgerTraffic = ledgerTraffic;
+    }
+
+    static class Options {
+        long intervalMillis = 15 * 60 * 1000;
+        boolean requireUnmetered = false;
+        boolean requireCharging = false;
+        // Percent, zero for no limit
+        int minBatteryLevel = 0;
+    }
+
+    private static class Delta {
+        final String json;
+        // Ledger time of the registry state the delta leads to
+        final long timestamp;
+        // Upper bound of the last fetched range, lower bound of the next one
+        final long to;
+
+        Delta(String json, long timestamp, long to) {
+            this.json = json;
+            this.timestamp = timestamp;
+            this.to = to;
+        }
+    }
+
+    synchronized void start(Context context, int poolHandle, Pool pool, Options options) {
+        stop();
+        this.context = context.getApplicationContext();
+        this.poolHandle = poolHandle;
+        this.pool = pool;
+        this.options = options;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "revocationPrefetch");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refreshAll();
+            }
+        }, 0, options.intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            pool = null;
+        }
+    }
+
+    synchronized boolean isRunningOn(int poolHandle) {
+        return executor != null && this.poolHandle == poolHandle;
+    }
+
+    /**
+     * Starts tracking a registry, it's fetched with the next refresh or right away when the prefetcher runs.
+     */
+    synchronized void track(final String revRegDefId) {
+        if (tracked.add(revRegDefId) && executor != null) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refreshQuietly(revRegDefId);
+                }
+            });
+        }
+    }
+
+    void untrack(String revRegDefId) {
+        tracked.remove(revRegDefId);
+        deltas.remove(revRegDefId);
+    }
+
+    int trackedCount() {
+        return tracked.size();
+    }
+
+    /**
+     * Returns the merged delta as JSON {"id", "json", "timestamp"} like a parsed GET_REVOC_REG_DELTA reply,
+     * null when it was not fetched yet.
+     */
+    String get(String revRegDefId) {
+        Delta delta = deltas.get(revRegDefId);
+        if (delta == null) {
+            return null;
+        }
+        JsonObject result = new JsonObject();
+        result.addProperty("id", revRegDefId);
+        result.add("json", gson.fromJson(delta.json, JsonElement.class));
+        result.addProperty("timestamp", delta.timestamp);
+        return gson.toJson(result);
+    }
+
+    private void refreshAll() {
+        if (!constraintsMet()) {
+            return;
+        }
+        for (String revRegDefId : tracked) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            refreshQuietly(revRegDefId);
+        }
+    }
+
+    private void refreshQuietly(String revRegDefId) {
+        try {
+            refresh(revRegDefId);
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to prefetch revocation registry delta " + revRegDefId, e);
+        }
+    }
+
+    private void refresh(String revRegDefId) throws Exception {
+        Pool pool;
+        synchronized (this) {
+            pool = this.pool;
+        }
+        if (pool == null) {
+            return;
+        }
+
+        Delta previous = deltas.get(revRegDefId);
+        long to = System.currentTimeMillis() / 1000;
+        long from = previous == null ? 0 : previous.to;
+        String request = Ledger.buildGetRevocRegDeltaRequest(null, revRegDefId, from, to).get();
+        String response = ledgerTraffic.submit(pool, request).get();
+        LedgerResults.ParseRegistryResponseResult result = Ledger.parseGetRevocRegDeltaResponse(response).get();
+
+        String json = previous == null
+                ? result.getObjectJson()
+                : Anoncreds.issuerMergeRevocationRegistryDeltas(previous.json, result.getObjectJson()).get();
+        // Skip the result when the registry was untracked during the fetch
+        if (tracked.contains(revRegDefId)) {
+            deltas.put(revRegDefId, new Delta(json, result.getTimestamp(), to));
+        }
+    }
+
+    private boolean constraintsMet() {
+        Options options;
+        Context context;
+        synchronized (this) {
+            options = this.options;
+            context = this.context;
+        }
+
+        ConnectivityManager connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo network = connectivity.getActiveNetworkInfo();
+        if (network == null || !network.isConnected()) {
+            return false;
+        }
+        if (options.requireUnmetered && connectivity.isActiveNetworkMetered()) {
+            return false;
+        }
+
+        BatteryManager battery = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        if (options.requireCharging && !battery.isCharging()) {
+            return false;
+        }
+        return options.minBatteryLevel <= 0
+                || battery.isCharging()
+                || battery.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY) >= options.minBatteryLevel;
+    }
+}
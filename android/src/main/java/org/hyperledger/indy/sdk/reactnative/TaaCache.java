@@ -0,0 +1,173 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import org.hyperledger.indy.sdk.ledger.Ledger;
+import org.hyperledger.indy.sdk.pool.Pool;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the active transaction author agreement and acceptance mechanisms of each pool and attaches
+ * the acceptance to write requests of pools with auto-accept enabled.
+ */
+class TaaCache {
+
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+
+    private final Gson gson = new Gson();
+    private final LedgerTraffic ledgerTraffic;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, AutoAccept> autoAccepts = new ConcurrentHashMap<>();
+    private volatile long refreshIntervalMillis = 60 * 60 * 1000;
+
+    TaaCache(LedgerTraffic ledgerTraffic) {
+        this.ledgerTraffic = ledgerTraffic;
+    }
+
+    private static class Entry {
+        final JsonElement taa;
+        final JsonElement aml;
+        final long fetchedAt;
+
+        Entry(JsonElement taa, JsonElement aml, long fetchedAt) {
+            this.taa = taa;
+            this.aml = aml;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private static class AutoAccept {
+        final String mechanism;
+        // Seconds since epoch, zero to use the start of the current day
+        final long time;
+
+        AutoAccept(String mechanism, long time) {
+            this.mechanism = mechanism;
+            this.time = time;
+        }
+    }
+
+    void setRefreshIntervalMillis(long refreshIntervalMillis) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    void setAutoAccept(int poolHandle, String mechanism, long time) {
+        if (mechanism == null) {
+            autoAccepts.remove(poolHandle);
+        } else {
+            autoAccepts.put(poolHandle, new AutoAccept(mechanism, time));
+        }
+    }
+
+    void invalidate(int poolHandle) {
+        entries.remove(poolHandle);
+        autoAccepts.remove(poolHandle);
+    }
+
+    private Entry entry(int poolHandle, Pool pool, boolean forceRefresh) throws Exception {
+        Entry entry = entries.get(poolHandle);
+        if (entry != null && !forceRefresh && System.currentTimeMillis() - entry.fetchedAt < refreshIntervalMillis) {
+            return entry;
+        }
+
+        String taaRequest = Ledger.buildGetTxnAuthorAgreementRequest(null, null).get();
+        String amlRequest = Ledger.buildGetAcceptanceMechanismsRequest(null, -1, null).get();
+        // Both requests are in flight at the same time
+        CompletableFuture<String> taaResponse = ledgerTraffic.submit(pool, taaRequest);
+        CompletableFuture<String> amlResponse = ledgerTraffic.submit(pool, amlRequest);
+
+        entry = new Entry(resultData(taaResponse.get()), resultData(amlResponse.get()), System.currentTimeMillis());
+        entries.put(poolHandle, entry);
+        return entry;
+    }
+
+    private JsonElement resultData(String response) {
+        JsonObject reply = gson.fromJson(response, JsonObject.class);
+        JsonElement result = reply.get("result");
+        if (result == null || !result.isJsonObject() || !result.getAsJsonObject().has("data")) {
+            return JsonNull.INSTANCE;
+        }
+        return result.getAsJsonObject().get("data");
+    }
+
+    /**
+     * Returns JSON {"taa", "aml"} with the data of the ledger replies, "taa" is null when the pool has no
+     * active agreement.
+     */
+    String get(int poolHandle, Pool pool, boolean forceRefresh) throws Exception {
+        Entry entry = entry(poolHandle, pool, forceRefresh);
+        JsonObject result = new JsonObject();
+        result.add("taa", entry.taa);
+        result.add("aml", entry.aml);
+        return gson.toJson(result);
+    }
+
+    /**
+     * Appends the acceptance of the active agreement to a write request when auto-accept is enabled for
+     * the pool and the pool has an agreement. Otherwise returns the request unchanged, also when the
+     * agreement was disabled on the ledger by setting an empty text.
+     */
+    String accept(int poolHandle, Pool pool, String requestJson) throws Exception {
+        AutoAccept autoAccept = autoAccepts.get(poolHandle);
+        if (autoAccept == null) {
+            return requestJson;
+        }
+        Entry entry = entry(poolHandle, pool, false);
+        if (!entry.taa.isJsonObject()) {
+            return requestJson;
+        }
+
+        JsonObject taa = entry.taa.getAsJsonObject();
+        JsonElement textElement = taa.get("text");
+        if (textElement == null || textElement.isJsonNull() || textElement.getAsString().isEmpty()) {
+            return requestJson;
+        }
+        String digest = taa.has("digest") ? taa.get("digest").getAsString() : null;
+        String text = digest == null ? textElement.getAsString() : null;
+        String version = digest == null ? taa.get("version").getAsString() : null;
+        long time = acceptanceTime(autoAccept.time, taa, System.currentTimeMillis());
+        return Ledger.appendTxnAuthorAgreementAcceptanceToRequest(requestJson, text, version, digest,
+                autoAccept.mechanism, (int) time).get();
+    }
+
+    /**
+     * Returns the configured acceptance time, or the start of the current day (UTC) when it is zero.
+     *
+     * libindy rounds the acceptance time down to the day, so an agreement ratified today can't be accepted
+     * with the default time before tomorrow. That throws instead of sending a write the ledger rejects.
+     */
+    static long acceptanceTime(long configuredTime, JsonObject taa, long nowMillis) {
+        if (configuredTime > 0) {
+            return configuredTime;
+        }
+        long startOfDay = nowMillis / 1000 / DAY_SECONDS * DAY_SECONDS;
+        JsonElement ratified = taa.get("ratification_ts");
+        if (ratified != null && !ratified.isJsonNull() && ratified.getAsLong() > startOfDay) {
+            throw new IllegalStateException("The transaction author agreement was ratified today, it can be "
+                    + "accepted from the start of the next day (UTC)");
+        }
+        return startOfDay;
+    }
+}
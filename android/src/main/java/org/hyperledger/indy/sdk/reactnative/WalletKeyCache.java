@@ -0,0 +1,298 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyPermanentlyInvalidatedException;
+import android.security.keystore.KeyProperties;
+import android.util.Base64;
+import android.util.Log;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * Keeps RAW wallet keys wrapped by an Android Keystore key, so wallets can be opened without
+ * running the passphrase key derivation.
+ *
+ * The RAW key exists only in wrapped form. No copy protected by a weaker key derivation than the
+ * wallet's own is kept, so a lost keystore key, e.g. after a backup restore to another device, loses
+ * the RAW key too. An active entry, one whose wallet was rekeyed to its RAW key, is never overwritten
+ * or removed because of a failure: it is the only way into the wallet.
+ */
+@TargetApi(24)
+class WalletKeyCache {
+
+    private static final String TAG = "IndySdk";
+    private static final String PREFERENCES_NAME = "IndySdkWalletKeys";
+    private static final String KEYSTORE_PROVIDER = "AndroidKeyStore";
+    private static final String KEYSTORE_ALIAS = "indy-sdk-react-native-wallet-keys";
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int GCM_TAG_BITS = 128;
+
+    private final SharedPreferences preferences;
+    private final Gson gson = new Gson();
+
+    static class Entry {
+        String wrappedKey;
+        String wrappedKeyIv;
+        // Set until the wallet was successfully rekeyed to the RAW key
+        boolean pending;
+    }
+
+    /**
+     * The keystore key can't unwrap the entry and never will: it was deleted, permanently invalidated, or
+     * replaced after the entry was written. Other keystore failures may be transient and are not reported
+     * as a lost key.
+     */
+    static class KeyLostException extends GeneralSecurityException {
+        KeyLostException(String walletId, Throwable cause) {
+            super("The keystore key wrapping the key of wallet " + walletId + " is lost, the wallet has to be"
+                    + " restored from an export", cause);
+        }
+    }
+
+    /**
+     * Native wallet calls used by open and disable.
+     */
+    interface WalletAccess<W> {
+        W openWithRawKey(String rawKey) throws Exception;
+
+        // Opens with the passphrase and rekeys the wallet to the RAW key
+        W openWithPassphrase(String rekeyTo) throws Exception;
+
+        // Opens with the RAW key, rekeys the wallet back to its passphrase and closes it
+        void rekeyToPassphrase(String rawKey) throws Exception;
+
+        String generateRawKey() throws Exception;
+
+        // Whether the wallet rejected the key
+        boolean isAccessFailure(Exception e);
+    }
+
+    WalletKeyCache(Context context) {
+        this(context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE));
+    }
+
+    WalletKeyCache(SharedPreferences preferences) {
+        this.preferences = preferences;
+    }
+
+    /**
+     * Opens the wallet with its cached RAW key. The first open, and an open after an interrupted rekey,
+     * uses the passphrase and rekeys the wallet to the RAW key.
+     */
+    <W> W open(String walletId, WalletAccess<W> access) throws Exception {
+        Entry entry = get(walletId);
+        String rawKey = null;
+        if (entry != null) {
+            try {
+                rawKey = unwrap(walletId, entry);
+            } catch (KeyLostException e) {
+                // The wallet is only keyed with the lost key once the entry is active
+                if (!entry.pending) {
+                    throw e;
+                }
+            }
+        }
+
+        if (rawKey != null) {
+            try {
+                W wallet = access.openWithRawKey(rawKey);
+                markActive(walletId);
+                return wallet;
+            } catch (Exception e) {
+                // A pending entry means the rekey to the RAW key might not have happened before
+                if (!entry.pending || !access.isAccessFailure(e)) {
+                    throw e;
+                }
+            }
+        }
+
+        // First open, or the rekey of a pending entry did not complete
+        boolean freshKey = rawKey == null;
+        if (freshKey) {
+            rawKey = access.generateRawKey();
+            put(walletId, rawKey, true);
+        }
+        W wallet;
+        try {
+            wallet = access.openWithPassphrase(rawKey);
+        } catch (Exception e) {
+            // Only the pending entry written above is dropped, the wallet still opens with its passphrase
+            if (freshKey) {
+                remove(walletId);
+            }
+            throw e;
+        }
+        markActive(walletId);
+        return wallet;
+    }
+
+    /**
+     * Rekeys the wallet back to its passphrase and forgets its RAW key.
+     */
+    void disable(String walletId, WalletAccess<?> access) throws Exception {
+        Entry entry = get(walletId);
+        if (entry == null) {
+            return;
+        }
+        String rawKey;
+        try {
+            rawKey = unwrap(walletId, entry);
+        } catch (KeyLostException e) {
+            if (!entry.pending) {
+                throw e;
+            }
+            // If the rekey happened the wallet is lost with the key, otherwise it opens with its passphrase
+            remove(walletId);
+            return;
+        }
+        try {
+            access.rekeyToPassphrase(rawKey);
+        } catch (Exception e) {
+            // A pending entry whose wallet rejects the RAW key was never rekeyed
+            if (!entry.pending || !access.isAccessFailure(e)) {
+                throw e;
+            }
+        }
+        remove(walletId);
+    }
+
+    synchronized Entry get(String walletId) {
+        String json = load(walletId);
+        return json == null ? null : gson.fromJson(json, Entry.class);
+    }
+
+    synchronized void put(String walletId, String rawKey, boolean pending) throws GeneralSecurityException {
+        Entry entry = new Entry();
+        wrap(entry, rawKey);
+        entry.pending = pending;
+        store(walletId, gson.toJson(entry));
+    }
+
+    synchronized void markActive(String walletId) {
+        Entry entry = get(walletId);
+        if (entry != null && entry.pending) {
+            entry.pending = false;
+            store(walletId, gson.toJson(entry));
+        }
+    }
+
+    synchronized void remove(String walletId) {
+        delete(walletId);
+    }
+
+    String load(String walletId) {
+        return preferences.getString(walletId, null);
+    }
+
+    // Written synchronously, the entry must survive a crash during the following rekey
+    void store(String walletId, String entryJson) {
+        preferences.edit().putString(walletId, entryJson).commit();
+    }
+
+    void delete(String walletId) {
+        preferences.edit().remove(walletId).commit();
+    }
+
+    /**
+     * Returns RAW key of the entry. Throws KeyLostException when the keystore key is gone for good, other
+     * exceptions are left to the caller to retry.
+     */
+    String unwrap(String walletId, Entry entry) throws GeneralSecurityException {
+        SecretKey key = keystoreKey(false);
+        if (key == null) {
+            throw new KeyLostException(walletId, null);
+        }
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(GCM_TAG_BITS, decode(entry.wrappedKeyIv)));
+        } catch (KeyPermanentlyInvalidatedException e) {
+            throw new KeyLostException(walletId, e);
+        }
+        try {
+            return new String(cipher.doFinal(decode(entry.wrappedKey)), StandardCharsets.UTF_8);
+        } catch (AEADBadTagException e) {
+            // Wrapped by a keystore key that was replaced since
+            throw new KeyLostException(walletId, e);
+        }
+    }
+
+    void wrap(Entry entry, String rawKey) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, keystoreKey(true));
+        entry.wrappedKey = encode(cipher.doFinal(rawKey.getBytes(StandardCharsets.UTF_8)));
+        entry.wrappedKeyIv = encode(cipher.getIV());
+    }
+
+    /**
+     * Returns the keystore key, null when it doesn't exist and create isn't set. With create set a missing
+     * key is generated and a permanently invalidated one, e.g. after the lock screen was removed, is replaced.
+     */
+    private static SecretKey keystoreKey(boolean create) throws GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_PROVIDER);
+        try {
+            keyStore.load(null);
+        } catch (java.io.IOException e) {
+            throw new GeneralSecurityException(e);
+        }
+        if (keyStore.containsAlias(KEYSTORE_ALIAS)) {
+            SecretKey key = (SecretKey) keyStore.getKey(KEYSTORE_ALIAS, null);
+            if (!create) {
+                return key;
+            }
+            try {
+                Cipher.getInstance(CIPHER).init(Cipher.ENCRYPT_MODE, key);
+                return key;
+            } catch (KeyPermanentlyInvalidatedException e) {
+                Log.w(TAG, "Keystore key was permanently invalidated, replacing it", e);
+                keyStore.deleteEntry(KEYSTORE_ALIAS);
+            }
+        } else if (!create) {
+            return null;
+        }
+
+        KeyGenerator generator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE_PROVIDER);
+        generator.init(new KeyGenParameterSpec.Builder(KEYSTORE_ALIAS, KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(256)
+                .build());
+        return generator.generateKey();
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.encodeToString(bytes, Base64.NO_WRAP);
+    }
+
+    private static byte[] decode(String value) {
+        return Base64.decode(value, Base64.NO_WRAP);
+    }
+}
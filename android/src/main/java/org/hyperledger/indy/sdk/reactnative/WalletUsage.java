@@ -0,0 +1,85 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts the calls using a wallet handle off its wallet lane, on the ledger, job and issuance threads.
+ *
+ * The close of a wallet marks the handle as closing, which rejects new calls, and waits until the calls in
+ * flight released the handle before the wallet is closed in libindy.
+ */
+class WalletUsage {
+
+    private final Map<Integer, Integer> inFlight = new HashMap<>();
+    private final Set<Integer> closing = new HashSet<>();
+
+    /**
+     * Registers a call using the handle, throws when the wallet is being closed. Every acquire is paired with
+     * a release.
+     */
+    synchronized void acquire(int walletHandle) {
+        if (closing.contains(walletHandle)) {
+            throw new IllegalStateException("Wallet not open: " + walletHandle);
+        }
+        Integer count = inFlight.get(walletHandle);
+        inFlight.put(walletHandle, count == null ? 1 : count + 1);
+    }
+
+    synchronized void release(int walletHandle) {
+        Integer count = inFlight.get(walletHandle);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            inFlight.put(walletHandle, count - 1);
+        } else {
+            inFlight.remove(walletHandle);
+            notifyAll();
+        }
+    }
+
+    synchronized int inFlight(int walletHandle) {
+        Integer count = inFlight.get(walletHandle);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Rejects further acquires of the handle until closed is called.
+     */
+    synchronized void closing(int walletHandle) {
+        closing.add(walletHandle);
+    }
+
+    /**
+     * Waits until no call holds the handle anymore.
+     */
+    synchronized void awaitIdle(int walletHandle) throws InterruptedException {
+        while (inFlight.containsKey(walletHandle)) {
+            wait();
+        }
+    }
+
+    synchronized void closed(int walletHandle) {
+        closing.remove(walletHandle);
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AdmissionControlTest {
+
+    private static final Gson gson = new Gson();
+
+    private AdmissionControl admission;
+    private final List<String> events = new ArrayList<>();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<ThreadPoolExecutor> lanes = new ArrayList<>();
+
+    private final Runnable blocked = new Runnable() {
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    private final Runnable noop = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Before
+    public void setUp() {
+        admission = new AdmissionControl();
+        admission.setListener(new AdmissionControl.Listener() {
+            @Override
+            public void onPressureChanged(String category, AdmissionControl.Pressure pressure, int queued, int queueCap) {
+                synchronized (events) {
+                    events.add(category + " " + pressure + " " + queued);
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private ThreadPoolExecutor lane() {
+        ThreadPoolExecutor lane = admission.newLane(Executors.defaultThreadFactory());
+        lanes.add(lane);
+        return lane;
+    }
+
+    private List<String> events() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    @Test
+    public void rejectsBeyondQueueCapWithNumericCode() throws Exception {
+        admission.configure(AdmissionControl.POOL, 1, 2);
+        admission.execute(AdmissionControl.POOL, blocked);
+        // The first task left the queue
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        admission.execute(AdmissionControl.POOL, noop);
+        admission.execute(AdmissionControl.POOL, noop);
+        try {
+            admission.execute(AdmissionControl.POOL, noop);
+            fail("Queued beyond the cap");
+        } catch (AdmissionControl.BusyException e) {
+            assertEquals("0", e.getCode());
+            JsonObject json = gson.fromJson(e.toJson(), JsonObject.class);
+            assertEquals("IndySdkBusy", json.get("name").getAsString());
+            assertEquals(0, json.get("indyCode").getAsInt());
+            assertEquals(2, json.get("queueCap").getAsInt());
+        }
+        JsonObject stats = gson.fromJson(admission.getStats(), JsonObject.class).getAsJsonObject("pool");
+        assertEquals("SATURATED", stats.get("pressure").getAsString());
+        assertEquals(1, stats.get("rejected").getAsInt());
+    }
+
+    @Test
+    public void walletLanePressureIsTheFullestLane() throws Exception {
+        admission.configure(AdmissionControl.WALLET_LANE, 0, 4);
+        ThreadPoolExecutor busy = lane();
+        ThreadPoolExecutor idle = lane();
+        for (int i = 0; i < 4; i++) {
+            admission.executeOnLane(busy, blocked);
+        }
+        assertTrue(busy.getQueue().size() >= 3);
+        // Calls on another lane don't lower the level of the busy one
+        admission.executeOnLane(idle, noop);
+        idle.shutdown();
+        assertTrue(idle.awaitTermination(5, TimeUnit.SECONDS));
+
+        JsonObject stats = gson.fromJson(admission.getStats(), JsonObject.class).getAsJsonObject("walletLane");
+        assertTrue(stats.get("pressure").getAsString().equals("ELEVATED") || stats.get("pressure").getAsString().equals("SATURATED"));
+        assertTrue(stats.get("queued").getAsInt() >= 3);
+        for (String event : events()) {
+            assertFalse(event, event.startsWith("walletLane NORMAL"));
+        }
+
+        release.countDown();
+        busy.shutdown();
+        assertTrue(busy.awaitTermination(5, TimeUnit.SECONDS));
+        stats = gson.fromJson(admission.getStats(), JsonObject.class).getAsJsonObject("walletLane");
+        assertEquals("NORMAL", stats.get("pressure").getAsString());
+        assertEquals(0, stats.get("queued").getAsInt());
+    }
+
+    @Test
+    public void shutDownLaneIsNotBusy() throws Exception {
+        ThreadPoolExecutor lane = lane();
+        lane.shutdown();
+        try {
+            admission.executeOnLane(lane, noop);
+            fail("Queued on a shut down lane");
+        } catch (AdmissionControl.BusyException e) {
+            fail("Shut down lane reported as busy");
+        } catch (RejectedExecutionException expected) {
+        }
+        JsonObject stats = gson.fromJson(admission.getStats(), JsonObject.class).getAsJsonObject("walletLane");
+        assertEquals("NORMAL", stats.get("pressure").getAsString());
+        assertEquals(0, stats.get("rejected").getAsInt());
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import org.hyperledger.indy.sdk.wallet.Wallet;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CredentialIndexTest {
+
+    private static final Gson gson = new Gson();
+    private static final int WALLET = 1;
+
+    private static final String SCHEMA = "NcYxiDXkpYi6ov5FcYDi1e:2:gvt:1.0";
+    private static final String CRED_DEF = "NcYxiDXkpYi6ov5FcYDi1e:3:CL:" + SCHEMA + ":tag";
+    private static final String OTHER_SCHEMA = "VsKV7grR1BUE29mG2Fm2kX:2:xyz:1.0";
+    private static final String OTHER_CRED_DEF = "VsKV7grR1BUE29mG2Fm2kX:3:CL:12:tag";
+    private static final String QUALIFIED_SCHEMA = "schema:sov:did:sov:NcYxiDXkpYi6ov5FcYDi1e:2:gvt:1.0";
+    private static final String QUALIFIED_CRED_DEF = "creddef:sov:did:sov:NcYxiDXkpYi6ov5FcYDi1e:3:CL:" + QUALIFIED_SCHEMA + ":tag";
+
+    // Answers the wallet scan from a fixed list of credential infos
+    private static class FixedIndex extends CredentialIndex {
+        private final JsonArray credentials = new JsonArray();
+        int scans;
+
+        FixedIndex() {
+            super(gson);
+        }
+
+        FixedIndex add(String referent, String schemaId, String credDefId, String... attrNames) {
+            JsonObject attrs = new JsonObject();
+            for (String name : attrNames) {
+                attrs.addProperty(name, "value");
+            }
+            JsonObject credential = new JsonObject();
+            credential.addProperty("referent", referent);
+            credential.addProperty("schema_id", schemaId);
+            credential.addProperty("cred_def_id", credDefId);
+            credential.add("attrs", attrs);
+            credentials.add(credential);
+            return this;
+        }
+
+        @Override
+        String scan(Wallet wallet) {
+            scans++;
+            return gson.toJson(credentials);
+        }
+    }
+
+    private static FixedIndex unqualified() {
+        return new FixedIndex()
+                .add("a", SCHEMA, CRED_DEF, "name", "age")
+                .add("b", OTHER_SCHEMA, OTHER_CRED_DEF, "name")
+                .add("c", OTHER_SCHEMA, OTHER_CRED_DEF, "name");
+    }
+
+    private static JsonObject item(String name, String restrictionsJson) {
+        JsonObject item = new JsonObject();
+        item.addProperty("name", name);
+        if (restrictionsJson != null) {
+            item.add("restrictions", gson.fromJson(restrictionsJson, JsonArray.class));
+        }
+        return item;
+    }
+
+    @Test
+    public void matchesFilterByIdParts() throws Exception {
+        FixedIndex index = unqualified();
+        assertEquals(Collections.singletonList("a"), index.match(WALLET, null, "{\"schema_name\": \"gvt\"}"));
+        assertEquals(Collections.singletonList("a"), index.match(WALLET, null, "{\"issuer_did\": \"NcYxiDXkpYi6ov5FcYDi1e\"}"));
+        assertEquals(Collections.singletonList("a"), index.match(WALLET, null,
+                "{\"schema_issuer_did\": \"NcYxiDXkpYi6ov5FcYDi1e\", \"schema_version\": \"1.0\"}"));
+        assertEquals(Collections.<String>emptyList(), index.match(WALLET, null, "{\"cred_def_id\": \"unknown\"}"));
+        assertEquals(1, index.scans);
+    }
+
+    @Test
+    public void fallsBackToScanForEmptyUnknownOrBroadFilters() throws Exception {
+        FixedIndex index = unqualified();
+        assertNull(index.match(WALLET, null, null));
+        assertNull(index.match(WALLET, null, "null"));
+        assertNull(index.match(WALLET, null, "{}"));
+        assertNull(index.match(WALLET, null, "{\"attr::name::marker\": \"1\"}"));
+        // Two of three credentials match
+        assertNull(index.match(WALLET, null, "{\"schema_id\": \"" + OTHER_SCHEMA + "\"}"));
+    }
+
+    @Test
+    public void fallsBackToScanWhenIdsAreQualified() throws Exception {
+        FixedIndex index = unqualified().add("q", QUALIFIED_SCHEMA, QUALIFIED_CRED_DEF, "name");
+        assertNull(index.match(WALLET, null, "{\"schema_name\": \"gvt\"}"));
+        assertNull(index.match(WALLET, null, "{\"issuer_did\": \"NcYxiDXkpYi6ov5FcYDi1e\"}"));
+    }
+
+    @Test
+    public void qualifiedIdsMayMatchAnyRestriction() throws Exception {
+        FixedIndex index = new FixedIndex().add("q", QUALIFIED_SCHEMA, QUALIFIED_CRED_DEF, "name");
+        assertTrue(index.mayMatch(WALLET, null, item("name", "[{\"issuer_did\": \"NcYxiDXkpYi6ov5FcYDi1e\"}]")));
+        assertTrue(index.mayMatch(WALLET, null, item("name", "[{\"schema_name\": \"gvt\"}]")));
+        // Attribute names are still known
+        assertFalse(index.mayMatch(WALLET, null, item("age", null)));
+    }
+
+    @Test
+    public void mayMatchChecksAttributeNamesAndRestrictions() throws Exception {
+        FixedIndex index = unqualified();
+        assertTrue(index.mayMatch(WALLET, null, item("Age", null)));
+        assertFalse(index.mayMatch(WALLET, null, item("height", null)));
+        assertTrue(index.mayMatch(WALLET, null, item("age", "[{\"schema_name\": \"gvt\"}]")));
+        assertFalse(index.mayMatch(WALLET, null, item("age", "[{\"schema_name\": \"xyz\"}]")));
+        // Value restrictions are left to libindy
+        assertTrue(index.mayMatch(WALLET, null, item("age", "[{\"attr::age::value\": \"30\"}]")));
+    }
+
+    @Test
+    public void tracksStoredAndDeletedCredentials() throws Exception {
+        FixedIndex index = unqualified();
+        List<String> before = index.match(WALLET, null, "{\"schema_name\": \"gvt\"}");
+        assertEquals(Collections.singletonList("a"), before);
+
+        JsonObject stored = new JsonObject();
+        stored.addProperty("referent", "d");
+        stored.addProperty("schema_id", SCHEMA);
+        stored.addProperty("cred_def_id", CRED_DEF);
+        stored.add("attrs", new JsonObject());
+        index.onStored(WALLET, gson.toJson(stored));
+        index.onDeleted(WALLET, "a");
+        // Still two of four after the delete, so the filter isn't broad
+        index.onStored(WALLET, gson.toJson(stored).replace("\"d\"", "\"e\"").replace("gvt", "abc"));
+
+        List<String> after = index.match(WALLET, null, "{\"schema_name\": \"gvt\"}");
+        assertEquals(Arrays.asList("d"), after);
+        assertEquals(1, index.scans);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class LedgerRequestsTest {
+
+    private static final Gson gson = new Gson();
+
+    @Test
+    public void parsesWriteReplies() {
+        String reply = "{\"op\": \"REPLY\", \"result\": {\"ver\": \"1\", \"txn\": {\"type\": \"1\", \"data\": {\"dest\": \"did\"}},"
+                + " \"txnMetadata\": {\"seqNo\": 12, \"txnTime\": 1570000000, \"txnId\": \"id\"}, \"reqSignature\": {}}}";
+        JsonObject parsed = gson.fromJson(LedgerRequests.parseWrite(reply), JsonObject.class);
+        assertEquals(12, parsed.get("seqNo").getAsInt());
+        assertEquals(1570000000, parsed.get("txnTime").getAsInt());
+        assertEquals("id", parsed.get("txnId").getAsString());
+        assertEquals("did", parsed.getAsJsonObject("data").get("dest").getAsString());
+        assertFalse(parsed.has("reqSignature"));
+    }
+
+    @Test
+    public void parsesWriteRepliesOfOlderNodes() {
+        String reply = "{\"op\": \"REPLY\", \"result\": {\"seqNo\": 3, \"txnTime\": 1500000000, \"data\": \"{}\"}}";
+        JsonObject parsed = gson.fromJson(LedgerRequests.parseWrite(reply), JsonObject.class);
+        assertEquals(3, parsed.get("seqNo").getAsInt());
+        assertEquals("{}", parsed.get("data").getAsString());
+    }
+
+    @Test
+    public void rejectsRejectAndNackReplies() throws Exception {
+        LedgerRequests.checkReply("{\"op\": \"REPLY\", \"result\": {}}");
+        for (String op : new String[] {"REJECT", "REQNACK"}) {
+            try {
+                LedgerRequests.checkReply("{\"op\": \"" + op + "\", \"reason\": \"client request invalid\"}");
+                fail("Accepted " + op);
+            } catch (LedgerRequests.RejectedException e) {
+                JsonObject json = gson.fromJson(e.toJson(), JsonObject.class);
+                assertEquals("IndyLedgerRejected", json.get("name").getAsString());
+                assertEquals(op, json.get("op").getAsString());
+                assertEquals("client request invalid", json.get("reason").getAsString());
+            }
+        }
+    }
+}
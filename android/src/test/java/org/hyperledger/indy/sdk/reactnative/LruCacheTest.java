@@ -0,0 +1,84 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LruCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        LruCache<String> cache = new LruCache<>("test", 2, 0);
+        cache.put(1, "a", "A");
+        cache.put(1, "b", "B");
+        // Touching a makes b the eldest
+        assertEquals("A", cache.get(1, "a"));
+        cache.put(1, "c", "C");
+
+        assertNull(cache.get(1, "b"));
+        assertEquals("A", cache.get(1, "a"));
+        assertEquals("C", cache.get(1, "c"));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void zeroCapacityDisablesCaching() {
+        LruCache<String> cache = new LruCache<>("test", 0, 0);
+        cache.put(1, "a", "A");
+        assertNull(cache.get(1, "a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expiredEntriesAreNotServed() throws Exception {
+        LruCache<String> cache = new LruCache<>("test", 10, 20);
+        cache.put(1, "a", "A");
+        assertEquals("A", cache.get(1, "a"));
+        Thread.sleep(50);
+        assertNull(cache.get(1, "a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidateDropsOnlyTheWallet() {
+        LruCache<String> cache = new LruCache<>("test", 10, 0);
+        cache.put(1, "a", "A");
+        cache.put(12, "a", "B");
+        cache.invalidate(1);
+
+        assertNull(cache.get(1, "a"));
+        // Handle 12 shares the digit but not the prefix "1:"
+        assertEquals("B", cache.get(12, "a"));
+    }
+
+    @Test
+    public void shrinkingTrimsEldestEntries() {
+        LruCache<String> cache = new LruCache<>("test", 3, 0);
+        cache.put(1, "a", "A");
+        cache.put(1, "b", "B");
+        cache.put(1, "c", "C");
+        cache.setCapacity(1);
+
+        assertEquals(1, cache.size());
+        assertEquals("C", cache.get(1, "c"));
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class NativeLogTest {
+
+    private static final Gson gson = new Gson();
+
+    private static JsonArray dump(int maxEntries) {
+        return gson.fromJson(NativeLog.dump(maxEntries), JsonArray.class);
+    }
+
+    @Test
+    public void keepsMostRecentEntriesOldestFirst() {
+        NativeLog.request(3, Collections.<String, String>emptyMap());
+        for (int i = 1; i <= 5; i++) {
+            NativeLog.append(2, "indy::api", "message " + i, "api.rs", i);
+        }
+        JsonArray entries = dump(10);
+        assertEquals(3, entries.size());
+        assertEquals("message 3", entries.get(0).getAsJsonObject().get("message").getAsString());
+        assertEquals("message 5", entries.get(2).getAsJsonObject().get("message").getAsString());
+        assertEquals("warn", entries.get(2).getAsJsonObject().get("level").getAsString());
+
+        entries = dump(1);
+        assertEquals(1, entries.size());
+        assertEquals("message 5", entries.get(0).getAsJsonObject().get("message").getAsString());
+    }
+
+    @Test
+    public void newRingDropsEarlierEntries() {
+        NativeLog.request(4, Collections.<String, String>emptyMap());
+        NativeLog.append(1, "indy", "before", null, 0);
+        NativeLog.request(4, Collections.<String, String>emptyMap());
+        assertEquals(0, dump(10).size());
+    }
+
+    @Test
+    public void longestModulePrefixSetsLevel() {
+        Map<String, String> levels = new HashMap<>();
+        levels.put("", "error");
+        levels.put("indy::services", "info");
+        levels.put("indy::services::pool", "TRACE");
+        NativeLog.setLevels(levels);
+        assertEquals(1, NativeLog.maxLevel("indy::api::wallet"));
+        assertEquals(3, NativeLog.maxLevel("indy::services::wallet"));
+        assertEquals(5, NativeLog.maxLevel("indy::services::pool::networker"));
+        assertEquals(1, NativeLog.maxLevel(null));
+
+        // Cached levels are dropped with new levels
+        NativeLog.setLevels(Collections.<String, String>emptyMap());
+        assertEquals(2, NativeLog.maxLevel("indy::services::pool::networker"));
+    }
+
+    @Test
+    public void rejectsUnknownLevel() {
+        try {
+            NativeLog.setLevels(Collections.singletonMap("", "verbose"));
+            fail("Accepted an unknown level");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class NodeLatencyTrackerTest {
+
+    private static final Gson gson = new Gson();
+    private static final long MINUTE = 60 * 1000;
+
+    // Tracker with a clock the test moves
+    private static class ClockedTracker extends NodeLatencyTracker {
+        long now = 1000000;
+
+        @Override
+        long now() {
+            return now;
+        }
+    }
+
+    private ClockedTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new ClockedTracker();
+        for (String node : Arrays.asList("Node1", "Node2", "Node3", "Node4")) {
+            tracker.addNode(node);
+        }
+    }
+
+    /**
+     * Opens the simulated pool with the config derived from the tracker and credits a read to the read node,
+     * a timeout when its delay is negative. Returns the credited node.
+     */
+    private String simulateOpenAndRead(Map<String, Double> delays) {
+        String node = NodeLatencyTracker.creditedNode(tracker.applyTo(null));
+        if (node == null) {
+            return null;
+        }
+        if (delays.get(node) < 0) {
+            tracker.recordFailure(node);
+        } else {
+            tracker.record(node, delays.get(node));
+        }
+        tracker.now += MINUTE;
+        return node;
+    }
+
+    private static Map<String, Double> delays(double node1, double node2, double node3, double node4) {
+        Map<String, Double> delays = new HashMap<>();
+        delays.put("Node1", node1);
+        delays.put("Node2", node2);
+        delays.put("Node3", node3);
+        delays.put("Node4", node4);
+        return delays;
+    }
+
+    @Test
+    public void ordersSimulatedPoolByDelay() {
+        Map<String, Double> delays = delays(400, 120, 900, 130);
+        for (int i = 0; i < 40; i++) {
+            simulateOpenAndRead(delays);
+        }
+        assertNull(tracker.nodeToExplore());
+        assertEquals(Arrays.asList("Node2", "Node4", "Node1", "Node3"), tracker.preorderedNodes());
+        JsonObject config = gson.fromJson(tracker.applyTo(null), JsonObject.class);
+        assertEquals(2, config.get("number_read_nodes").getAsInt());
+        assertEquals("Node2", config.getAsJsonArray("preordered_nodes").get(0).getAsString());
+    }
+
+    @Test
+    public void keepsTimedOutNodeOutOfExplorationDuringBackoff() {
+        Map<String, Double> delays = delays(100, 200, 300, -1);
+        for (int i = 0; i < 40; i++) {
+            simulateOpenAndRead(delays);
+        }
+        // Measured nodes are fresh, only the dead node wants measuring and it backs off ever longer:
+        // 1, 2, 4, 8, 16 and 32 minutes
+        int deadProbes = 0;
+        for (int i = 0; i < 60; i++) {
+            if ("Node4".equals(simulateOpenAndRead(delays))) {
+                deadProbes++;
+            }
+        }
+        assertTrue(deadProbes <= 6);
+        assertEquals(Arrays.asList("Node1", "Node2", "Node3"), tracker.preorderedNodes());
+        assertEquals("Node4", lastPreorderedNode(tracker.applyTo(null)));
+    }
+
+    @Test
+    public void backoffDoublesAndEndsWithReply() {
+        tracker.record("Node1", 100);
+        tracker.recordFailure("Node1");
+        long start = tracker.now;
+        for (String node : Arrays.asList("Node2", "Node3", "Node4")) {
+            for (int i = 0; i < 5; i++) {
+                tracker.record(node, 100);
+            }
+        }
+        assertNull(tracker.nodeToExplore());
+        tracker.now = start + MINUTE;
+        assertEquals("Node1", tracker.nodeToExplore());
+
+        tracker.recordFailure("Node1");
+        tracker.now += MINUTE;
+        assertNull(tracker.nodeToExplore());
+        tracker.now += MINUTE;
+        assertEquals("Node1", tracker.nodeToExplore());
+
+        tracker.record("Node1", 50);
+        assertEquals("Node1", tracker.preorderedNodes().get(0));
+        // Back to exploring it for its missing samples
+        assertEquals("Node1", tracker.nodeToExplore());
+    }
+
+    @Test
+    public void timedOutNodeGoesLast() {
+        for (String node : Arrays.asList("Node1", "Node2", "Node3", "Node4")) {
+            tracker.record(node, 100);
+        }
+        tracker.record("Node1", 10);
+        tracker.recordFailure("Node1");
+        assertEquals("Node1", tracker.preorderedNodes().get(3));
+        assertEquals("Node1", lastPreorderedNode(tracker.applyTo(null)));
+        assertFalse("Node1".equals(NodeLatencyTracker.creditedNode(tracker.applyTo(null))));
+    }
+
+    @Test
+    public void snapshotsOnlyChangedMeasurements() {
+        assertNull(tracker.snapshotIfChanged());
+        tracker.record("Node1", 100);
+        tracker.recordFailure("Node2");
+        String saved = tracker.snapshotIfChanged();
+        assertNull(tracker.snapshotIfChanged());
+
+        ClockedTracker loaded = new ClockedTracker();
+        loaded.now = tracker.now;
+        loaded.load(saved);
+        assertEquals(tracker.toJson(), loaded.toJson());
+        // The backoff of Node2 survives the restart
+        assertEquals("Node2", lastPreorderedNode(loaded.applyTo(null)));
+        for (int i = 0; i < 2; i++) {
+            loaded.record("Node3", 100);
+            loaded.record("Node4", 100);
+        }
+        assertEquals("Node1", loaded.nodeToExplore());
+    }
+
+    private static String lastPreorderedNode(String config) {
+        JsonObject json = gson.fromJson(config, JsonObject.class);
+        int size = json.getAsJsonArray("preordered_nodes").size();
+        return json.getAsJsonArray("preordered_nodes").get(size - 1).getAsString();
+    }
+}
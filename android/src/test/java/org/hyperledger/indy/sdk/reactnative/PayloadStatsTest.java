@@ -0,0 +1,95 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PayloadStatsTest {
+
+    private static final Gson gson = new Gson();
+
+    private static JsonObject histogram(PayloadStats stats, String tag, String direction) {
+        return gson.fromJson(stats.getStats(), JsonObject.class).getAsJsonObject("tags")
+                .getAsJsonObject(tag).getAsJsonObject(direction);
+    }
+
+    @Test
+    public void countsSizesIntoBuckets() {
+        PayloadStats stats = new PayloadStats();
+        stats.record("packMessage", PayloadStats.ARGUMENT, 10);
+        stats.record("packMessage", PayloadStats.ARGUMENT, 1024);
+        stats.record("packMessage", PayloadStats.ARGUMENT, 2 << 20);
+        stats.record("packMessage", PayloadStats.RESULT, 100);
+
+        JsonObject arguments = histogram(stats, "packMessage", PayloadStats.ARGUMENT);
+        assertEquals(3, arguments.get("count").getAsLong());
+        assertEquals(10 + 1024 + (2 << 20), arguments.get("total").getAsLong());
+        assertEquals(2 << 20, arguments.get("max").getAsLong());
+        JsonObject buckets = arguments.getAsJsonObject("buckets");
+        assertEquals(1, buckets.get("<1K").getAsLong());
+        // Bounds are exclusive
+        assertEquals(1, buckets.get("<4K").getAsLong());
+        assertEquals(1, buckets.get(">=1M").getAsLong());
+        assertEquals(1, histogram(stats, "packMessage", PayloadStats.RESULT).get("count").getAsLong());
+
+        stats.reset();
+        assertEquals(0, gson.fromJson(stats.getStats(), JsonObject.class).getAsJsonObject("tags").size());
+    }
+
+    @Test
+    public void reportsTransfersAboveThreshold() {
+        final List<String> reports = new ArrayList<>();
+        PayloadStats stats = new PayloadStats();
+        stats.setListener(new PayloadStats.Listener() {
+            @Override
+            public void onLargeTransfer(String tag, String direction, long size, long threshold) {
+                reports.add(tag + " " + direction + " " + size + " " + threshold);
+            }
+        });
+        stats.setWarningThreshold(100);
+        stats.record("submitRequest", PayloadStats.ARGUMENT, 100);
+        stats.record("submitRequest", PayloadStats.RESULT, 101);
+        stats.setWarningThreshold(0);
+        stats.record("submitRequest", PayloadStats.RESULT, 1 << 20);
+        assertEquals(1, reports.size());
+        assertEquals("submitRequest result 101 100", reports.get(0));
+    }
+
+    @Test
+    public void sizesMatchBridgeEncoding() {
+        assertEquals(0, PayloadStats.size((String) null));
+        assertEquals(5, PayloadStats.size("abc", null, "de"));
+
+        byte[] buffer = {0, 9, 10, 99, 100, 127, -1, -10, -100, -128};
+        int[] ints = new int[buffer.length];
+        for (int i = 0; i < buffer.length; i++) {
+            ints[i] = buffer[i];
+        }
+        assertEquals(gson.toJson(ints).length(), PayloadStats.size(buffer));
+        assertEquals(2, PayloadStats.size(new byte[0]));
+        assertEquals(0, PayloadStats.size((byte[]) null));
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import com.google.gson.JsonObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TaaCacheTest {
+
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+    // 2019-10-01T00:00:00Z
+    private static final long START_OF_DAY = 1569888000;
+    private static final long NOW_MILLIS = (START_OF_DAY + 15 * 60 * 60) * 1000;
+
+    private static JsonObject taa(Long ratifiedAt) {
+        JsonObject taa = new JsonObject();
+        taa.addProperty("text", "agreement");
+        taa.addProperty("version", "1.0");
+        if (ratifiedAt != null) {
+            taa.addProperty("ratification_ts", ratifiedAt);
+        }
+        return taa;
+    }
+
+    @Test
+    public void defaultsToStartOfDay() {
+        assertEquals(START_OF_DAY, TaaCache.acceptanceTime(0, taa(null), NOW_MILLIS));
+        assertEquals(START_OF_DAY, TaaCache.acceptanceTime(0, taa(START_OF_DAY - DAY_SECONDS), NOW_MILLIS));
+        assertEquals(START_OF_DAY, TaaCache.acceptanceTime(0, taa(START_OF_DAY), NOW_MILLIS));
+    }
+
+    @Test
+    public void keepsConfiguredTime() {
+        assertEquals(START_OF_DAY + 60, TaaCache.acceptanceTime(START_OF_DAY + 60, taa(START_OF_DAY + 30), NOW_MILLIS));
+    }
+
+    @Test
+    public void rejectsAgreementRatifiedToday() {
+        try {
+            TaaCache.acceptanceTime(0, taa(START_OF_DAY + 60), NOW_MILLIS);
+            fail("Accepted an agreement ratified today");
+        } catch (IllegalStateException expected) {
+        }
+        // Accepted the next day
+        assertEquals(START_OF_DAY + DAY_SECONDS,
+                TaaCache.acceptanceTime(0, taa(START_OF_DAY + 60), NOW_MILLIS + DAY_SECONDS * 1000));
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import android.content.SharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WalletKeyCacheTest {
+
+    private static final String WALLET_ID = "wallet";
+    private static final String PASSPHRASE = "passphrase";
+
+    private enum Keystore { AVAILABLE, UNAVAILABLE, LOST }
+
+    // Keeps entries in memory and "wraps" keys by tagging them with the keystore key generation
+    private static class FakeKeyCache extends WalletKeyCache {
+        final Map<String, String> entries = new HashMap<>();
+        Keystore keystore = Keystore.AVAILABLE;
+        int generation = 1;
+
+        FakeKeyCache() {
+            super((SharedPreferences) null);
+        }
+
+        @Override
+        String load(String walletId) {
+            return entries.get(walletId);
+        }
+
+        @Override
+        void store(String walletId, String entryJson) {
+            entries.put(walletId, entryJson);
+        }
+
+        @Override
+        void delete(String walletId) {
+            entries.remove(walletId);
+        }
+
+        @Override
+        void wrap(Entry entry, String rawKey) throws GeneralSecurityException {
+            if (keystore == Keystore.UNAVAILABLE) {
+                throw new GeneralSecurityException("keystore busy");
+            }
+            if (keystore == Keystore.LOST) {
+                // A missing key is generated on wrap
+                keystore = Keystore.AVAILABLE;
+                generation++;
+            }
+            entry.wrappedKey = rawKey;
+            entry.wrappedKeyIv = String.valueOf(generation);
+        }
+
+        @Override
+        String unwrap(String walletId, Entry entry) throws GeneralSecurityException {
+            if (keystore == Keystore.UNAVAILABLE) {
+                throw new GeneralSecurityException("keystore busy");
+            }
+            if (keystore == Keystore.LOST || !entry.wrappedKeyIv.equals(String.valueOf(generation))) {
+                throw new KeyLostException(walletId, null);
+            }
+            return entry.wrappedKey;
+        }
+    }
+
+    private static class AccessFailure extends Exception {
+    }
+
+    // A wallet keyed with either its passphrase or a RAW key
+    private static class FakeWallet implements WalletKeyCache.WalletAccess<FakeWallet> {
+        String key = PASSPHRASE;
+        String passphrase = PASSPHRASE;
+        int generatedKeys;
+
+        @Override
+        public FakeWallet openWithRawKey(String rawKey) throws Exception {
+            if (!key.equals(rawKey)) {
+                throw new AccessFailure();
+            }
+            return this;
+        }
+
+        @Override
+        public FakeWallet openWithPassphrase(String rekeyTo) throws Exception {
+            if (!key.equals(passphrase)) {
+                throw new AccessFailure();
+            }
+            key = rekeyTo;
+            return this;
+        }
+
+        @Override
+        public void rekeyToPassphrase(String rawKey) throws Exception {
+            openWithRawKey(rawKey);
+            key = passphrase;
+        }
+
+        @Override
+        public String generateRawKey() {
+            return "raw" + ++generatedKeys;
+        }
+
+        @Override
+        public boolean isAccessFailure(Exception e) {
+            return e instanceof AccessFailure;
+        }
+    }
+
+    private FakeKeyCache cache;
+    private FakeWallet wallet;
+
+    @Before
+    public void setUp() {
+        cache = new FakeKeyCache();
+        wallet = new FakeWallet();
+    }
+
+    private WalletKeyCache.Entry entry() {
+        return cache.get(WALLET_ID);
+    }
+
+    @Test
+    public void firstOpenRekeysAndLaterOpensUseTheRawKey() throws Exception {
+        assertSame(wallet, cache.open(WALLET_ID, wallet));
+        assertEquals("raw1", wallet.key);
+        assertFalse(entry().pending);
+
+        assertSame(wallet, cache.open(WALLET_ID, wallet));
+        assertEquals(1, wallet.generatedKeys);
+    }
+
+    @Test
+    public void transientKeystoreFailureKeepsTheEntry() throws Exception {
+        cache.open(WALLET_ID, wallet);
+        String before = cache.entries.get(WALLET_ID);
+
+        cache.keystore = Keystore.UNAVAILABLE;
+        try {
+            cache.open(WALLET_ID, wallet);
+            fail("open must fail while the keystore is unavailable");
+        } catch (GeneralSecurityException e) {
+            assertFalse(e instanceof WalletKeyCache.KeyLostException);
+        }
+        assertEquals(before, cache.entries.get(WALLET_ID));
+        assertEquals("raw1", wallet.key);
+
+        cache.keystore = Keystore.AVAILABLE;
+        assertSame(wallet, cache.open(WALLET_ID, wallet));
+    }
+
+    @Test
+    public void lostKeyOfAnActiveEntryIsReportedWithoutTouchingIt() throws Exception {
+        cache.open(WALLET_ID, wallet);
+        String before = cache.entries.get(WALLET_ID);
+
+        cache.keystore = Keystore.LOST;
+        try {
+            cache.open(WALLET_ID, wallet);
+            fail("open must fail once the keystore key is lost");
+        } catch (WalletKeyCache.KeyLostException e) {
+            assertNotNull(e.getMessage());
+        }
+        assertEquals(before, cache.entries.get(WALLET_ID));
+        assertEquals(1, wallet.generatedKeys);
+
+        try {
+            cache.disable(WALLET_ID, wallet);
+            fail("disable must fail once the keystore key is lost");
+        } catch (WalletKeyCache.KeyLostException e) {
+            assertEquals(before, cache.entries.get(WALLET_ID));
+        }
+    }
+
+    @Test
+    public void replacedKeystoreKeyOfAnActiveEntryIsReportedWithoutTouchingIt() throws Exception {
+        cache.open(WALLET_ID, wallet);
+        String before = cache.entries.get(WALLET_ID);
+        // Another wallet's first open replaced the invalidated keystore key
+        cache.keystore = Keystore.LOST;
+        cache.open("other", new FakeWallet());
+
+        try {
+            cache.open(WALLET_ID, wallet);
+            fail("open must fail once the keystore key was replaced");
+        } catch (WalletKeyCache.KeyLostException e) {
+            assertEquals(before, cache.entries.get(WALLET_ID));
+        }
+    }
+
+    @Test
+    public void lostKeyOfAPendingEntryFallsBackToThePassphrase() throws Exception {
+        // Crash after the entry was written, before the rekey
+        cache.put(WALLET_ID, "raw0", true);
+        cache.keystore = Keystore.LOST;
+
+        assertSame(wallet, cache.open(WALLET_ID, wallet));
+        assertEquals("raw1", wallet.key);
+        assertFalse(entry().pending);
+        assertSame(wallet, cache.open(WALLET_ID, wallet));
+    }
+
+    @Test
+    public void interruptedRekeyIsCompletedWithTheSameKey() throws Exception {
+        cache.put(WALLET_ID, "raw0", true);
+
+        assertSame(wallet, cache.open(WALLET_ID, wallet));
+        assertEquals("raw0", wallet.key);
+        assertEquals(0, wallet.generatedKeys);
+        assertFalse(entry().pending);
+    }
+
+    @Test
+    public void failedFirstOpenDropsOnlyItsPendingEntry() throws Exception {
+        wallet.key = "other passphrase";
+        try {
+            cache.open(WALLET_ID, wallet);
+            fail("open must fail with a wrong passphrase");
+        } catch (AccessFailure e) {
+            assertNull(entry());
+        }
+    }
+
+    @Test
+    public void activeEntryIsKeptWhenTheWalletRejectsTheRawKey() throws Exception {
+        cache.open(WALLET_ID, wallet);
+        String before = cache.entries.get(WALLET_ID);
+        // E.g. the wallet was replaced by an import
+        wallet.key = PASSPHRASE;
+
+        try {
+            cache.open(WALLET_ID, wallet);
+            fail("open must fail when the wallet rejects the RAW key");
+        } catch (AccessFailure e) {
+            assertEquals(before, cache.entries.get(WALLET_ID));
+            assertEquals(1, wallet.generatedKeys);
+        }
+    }
+
+    @Test
+    public void disableRekeysToThePassphrase() throws Exception {
+        cache.open(WALLET_ID, wallet);
+        cache.disable(WALLET_ID, wallet);
+
+        assertEquals(PASSPHRASE, wallet.key);
+        assertNull(entry());
+    }
+
+    @Test
+    public void disableKeepsTheEntryOnTransientFailure() throws Exception {
+        cache.open(WALLET_ID, wallet);
+        cache.keystore = Keystore.UNAVAILABLE;
+        try {
+            cache.disable(WALLET_ID, wallet);
+            fail("disable must fail while the keystore is unavailable");
+        } catch (GeneralSecurityException e) {
+            assertTrue(cache.entries.containsKey(WALLET_ID));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2019 ABSA Group Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.hyperledger.indy.sdk.reactnative;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WalletUsageTest {
+
+    private static final int WALLET = 1;
+    private static final int OTHER_WALLET = 2;
+
+    @Test
+    public void countsCallsByHandle() {
+        WalletUsage usage = new WalletUsage();
+        usage.acquire(WALLET);
+        usage.acquire(WALLET);
+        usage.acquire(OTHER_WALLET);
+        assertEquals(2, usage.inFlight(WALLET));
+        usage.release(WALLET);
+        usage.release(WALLET);
+        // Unpaired releases are ignored
+        usage.release(WALLET);
+        assertEquals(0, usage.inFlight(WALLET));
+        assertEquals(1, usage.inFlight(OTHER_WALLET));
+    }
+
+    @Test
+    public void rejectsCallsWhileClosing() {
+        WalletUsage usage = new WalletUsage();
+        usage.closing(WALLET);
+        try {
+            usage.acquire(WALLET);
+            fail("Acquired a closing wallet");
+        } catch (IllegalStateException expected) {
+        }
+        usage.acquire(OTHER_WALLET);
+        usage.closed(WALLET);
+        usage.acquire(WALLET);
+        assertEquals(1, usage.inFlight(WALLET));
+    }
+
+    @Test
+    public void closeWaitsForCallsInFlight() throws Exception {
+        final WalletUsage usage = new WalletUsage();
+        usage.acquire(WALLET);
+        usage.acquire(OTHER_WALLET);
+        usage.closing(WALLET);
+
+        final AtomicBoolean idle = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread close = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    usage.awaitIdle(WALLET);
+                    idle.set(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        });
+        close.start();
+
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+        usage.release(WALLET);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(idle.get());
+        // Calls on other wallets don't hold the close up
+        assertEquals(1, usage.inFlight(OTHER_WALLET));
+    }
+}
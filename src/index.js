@@ -15,7 +15,7 @@
  *
  */
 
-import { NativeModules } from 'react-native'
+import { DeviceEventEmitter, NativeModules, Platform } from 'react-native'
 import { Buffer } from 'buffer'
 
 export type CredOffer = {
@@ -265,6 +265,21 @@ export type WalletRecord = {
 
 export type WalletSearchHandle = number
 
+export type WalletRecordOperation =
+  | { op: 'add', type: string, id: string, value: string, tags?: {} }
+  | { op: 'updateValue', type: string, id: string, value: string }
+  | { op: 'updateTags' | 'addTags', type: string, id: string, tags: {} }
+  | { op: 'deleteTags', type: string, id: string, tagNames: string[] }
+  | { op: 'delete', type: string, id: string }
+
+export type WalletRecordBatchResult = {
+  results: Array<{ ok: boolean, error?: Object, durationMs: number }>,
+  executed: number,
+  failed: number,
+  totalMs: number,
+  maxMs: number,
+}
+
 export type WalletRecrods = {
   totalCount?: string,
   records?: WalletRecord[],
@@ -286,19 +301,250 @@ export type GetNymResponse = {
   role: NymRole,
 }
 
+export type NativeLibraryStats = {
+  loaded: boolean,
+  loadedBy: 'preload' | 'firstUse' | null,
+  loadDurationMs: number,
+  error: string | null,
+}
+
+export type NativeLogLevel = 'off' | 'error' | 'warn' | 'info' | 'debug' | 'trace'
+
+export type NativeLogEntry = {
+  sequence: number,
+  time: number,
+  level: NativeLogLevel,
+  target: string,
+  message: string,
+  file: ?string,
+  line: number,
+}
+
+export type AdmissionCategory = 'ledger' | 'pool' | 'walletLane'
+
+export type Pressure = 'NORMAL' | 'ELEVATED' | 'SATURATED'
+
+export type AdmissionStats = {
+  pressure: Pressure,
+  queueCap: number,
+  rejected: number,
+  concurrency?: number,
+  active?: number,
+  queued?: number,
+}
+
+export type PayloadDirection = 'argument' | 'result'
+
+export type PayloadHistogram = {
+  count: number,
+  total: number,
+  max: number,
+  buckets: { [bucket: string]: number },
+}
+
+export type PayloadStats = {
+  warningThreshold: number,
+  tags: { [tag: string]: { [PayloadDirection]: PayloadHistogram } },
+}
+
+export type JobId = string
+
+export type JobUpdate = {
+  jobId: JobId,
+  name: string,
+  state: 'QUEUED' | 'RUNNING' | 'SUCCEEDED' | 'FAILED' | 'CANCELLED',
+  elapsedMs: number,
+}
+
 const { IndySdk } = NativeModules
 
 const indy = {
+  // library
+
+  /**
+   * Loads the native Indy library in the background, e.g. from idle time after app start.
+   * Without it the library is loaded by the first Indy call.
+   */
+  async preload(): Promise<NativeLibraryStats> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.preload()
+  },
+
+  async getNativeLibraryStats(): Promise<NativeLibraryStats> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.getNativeLibraryStats()
+  },
+
+  // runtime
+
+  /**
+   * Passes libindy runtime config, e.g. `{ crypto_thread_pool_size: 4, collect_backtrace: false }`.
+   */
+  async setRuntimeConfig(config: { crypto_thread_pool_size?: number, collect_backtrace?: boolean }): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setRuntimeConfig(JSON.stringify(config))
+  },
+
+  /**
+   * Sizes the crypto thread pool from the number of cores of the device. Resolves the applied config.
+   */
+  async autoTuneRuntimeConfig(collectBacktrace: boolean = false): Promise<Object> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.autoTuneRuntimeConfig(collectBacktrace))
+  },
+
+  /**
+   * Indy error codes whose errors come without `indyBacktrace`, none by default. This only leaves the backtrace out of
+   * the error, libindy still collects it unless `collect_backtrace` is turned off with `setRuntimeConfig`.
+   */
+  async setBacktraceSkippedErrorCodes(codes: number[]): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setBacktraceSkippedErrorCodes(codes)
+  },
+
+  /**
+   * Captures libindy logs into an in-memory ring of `capacity` entries. `levels` maps module path prefixes to the
+   * maximum level, e.g. `{ '': 'warn', 'indy::services::pool': 'debug' }`. Must be called before the first Indy call,
+   * resolves false otherwise.
+   */
+  async enableNativeLogCapture(capacity: number, levels: { [prefix: string]: NativeLogLevel } = {}): Promise<boolean> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.enableNativeLogCapture(capacity, JSON.stringify(levels))
+  },
+
+  async setNativeLogLevels(levels: { [prefix: string]: NativeLogLevel }): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setNativeLogLevels(JSON.stringify(levels))
+  },
+
+  async dumpNativeLog(maxEntries: number = 1000): Promise<Array<NativeLogEntry>> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.dumpNativeLog(maxEntries))
+  },
+
+  /**
+   * Limits concurrency and queued calls of a category: `ledger`, `pool` or `walletLane` (queue cap per wallet, applies
+   * to wallets opened afterwards). Calls beyond the queue cap are rejected with code `0` and an error named
+   * `IndySdkBusy`.
+   */
+  async configureAdmission(category: AdmissionCategory, concurrency: number, queueCap: number): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.configureAdmission(category, concurrency, queueCap)
+  },
+
+  async getAdmissionStats(): Promise<{ [AdmissionCategory]: AdmissionStats }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.getAdmissionStats())
+  },
+
+  /**
+   * Called when the pressure level of a category changes, callers should slow down from `ELEVATED` on. For
+   * `walletLane` it is the level of the fullest wallet lane.
+   */
+  onPressure(
+    listener: (event: { category: AdmissionCategory, pressure: Pressure, queued: number, queueCap: number }) => void
+  ): { remove: () => void } {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return DeviceEventEmitter.addListener('IndySdkPressure', listener)
+  },
+
+  /**
+   * Sets the size in characters above which a single argument or result transfer is reported to `onLargeTransfer`,
+   * 0 turns the reports off.
+   */
+  async setPayloadWarningThreshold(threshold: number): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setPayloadWarningThreshold(threshold)
+  },
+
+  /**
+   * Size histograms of arguments and results per call site tag. Byte buffers count as the int arrays they cross the
+   * bridge as.
+   */
+  async getPayloadStats(): Promise<PayloadStats> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.getPayloadStats())
+  },
+
+  async resetPayloadStats(): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.resetPayloadStats()
+  },
+
+  onLargeTransfer(
+    listener: (event: { tag: string, direction: PayloadDirection, size: number, threshold: number }) => void
+  ): { remove: () => void } {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return DeviceEventEmitter.addListener('IndySdkLargeTransfer', listener)
+  },
+
   // wallet
 
   createWallet(config: Object, credentials: Object): Promise<void> {
     return IndySdk.createWallet(JSON.stringify(config), JSON.stringify(credentials))
   },
 
+  /**
+   * On Android opening a wallet id that is already open, or being opened, returns the same handle.
+   * Every open has to be balanced by `closeWallet`, the wallet is closed when the last holder closes it.
+   */
   openWallet(config: Object, credentials: Object): Promise<WalletHandle> {
     return IndySdk.openWallet(JSON.stringify(config), JSON.stringify(credentials))
   },
 
+  /**
+   * Opens the wallet with a RAW key kept in the Android Keystore, so only the first open pays for the passphrase
+   * key derivation. The first call rekeys the wallet, after that it must be opened through this method until
+   * `disableCachedWalletKey` is called. The key is kept only in the Keystore, if the Keystore key is lost (e.g. after a
+   * restore to another device) the wallet has to be restored from an export.
+   */
+  openWalletWithCachedKey(config: Object, credentials: Object): Promise<WalletHandle> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.openWalletWithCachedKey(JSON.stringify(config), JSON.stringify(credentials))
+  },
+
+  /**
+   * Rekeys a closed wallet back to its passphrase and removes the cached key.
+   */
+  disableCachedWalletKey(config: Object, credentials: Object): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.disableCachedWalletKey(JSON.stringify(config), JSON.stringify(credentials))
+  },
+
   closeWallet(wh: WalletHandle): Promise<void> {
     return IndySdk.closeWallet(wh)
   },
@@ -315,6 +561,75 @@ const indy = {
     return IndySdk.importWallet(JSON.stringify(config), JSON.stringify(credentials), JSON.stringify(importConfig))
   },
 
+  // jobs
+
+  /**
+   * Job variants of long running calls resolve a job id at once. Use `awaitJob` for the result and `onJobUpdate`
+   * for state and elapsed time. Results of jobs not awaited are dropped 10 minutes after the job finished.
+   */
+  async submitExportWalletJob(wh: WalletHandle, exportConfig: Object): Promise<JobId> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.submitExportWalletJob(wh, JSON.stringify(exportConfig))
+  },
+
+  async submitImportWalletJob(config: Object, credentials: Object, importConfig: Object): Promise<JobId> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.submitImportWalletJob(JSON.stringify(config), JSON.stringify(credentials), JSON.stringify(importConfig))
+  },
+
+  /**
+   * Job result is `[credDefId, credDef]`.
+   */
+  async submitIssuerCreateAndStoreCredentialDefJob(
+    wh: WalletHandle,
+    issuerDid: Did,
+    schema: Schema,
+    tag: string,
+    signatureType: string,
+    config: {}
+  ): Promise<JobId> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.submitIssuerCreateAndStoreCredentialDefJob(
+      wh,
+      issuerDid,
+      JSON.stringify(schema),
+      tag,
+      signatureType,
+      JSON.stringify(config)
+    )
+  },
+
+  /**
+   * Resolves the parsed job result, null for jobs without result. Rejects with the job error or when it was cancelled.
+   */
+  async awaitJob(jobId: JobId): Promise<any> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    const result = await IndySdk.awaitJob(jobId)
+    return result == null ? null : JSON.parse(result)
+  },
+
+  async cancelJob(jobId: JobId): Promise<boolean> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.cancelJob(jobId)
+  },
+
+  onJobUpdate(listener: (update: JobUpdate) => void): { remove: () => void } {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return DeviceEventEmitter.addListener('IndySdkJobUpdate', listener)
+  },
+
   // did
 
   /**
@@ -328,6 +643,26 @@ const indy = {
     return IndySdk.createAndStoreMyDid(wh, JSON.stringify(did))
   },
 
+  /**
+   * Keeps `size` DIDs pre-created in the wallet for `takePooledDid`, refilled in the background. 0 stops refilling.
+   */
+  async configureDidPool(wh: WalletHandle, size: number): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.configureDidPool(wh, size)
+  },
+
+  /**
+   * Claims a pre-created DID, same result as `createAndStoreMyDid(wh, {})`. Creates one when the pool is empty.
+   */
+  async takePooledDid(wh: WalletHandle): Promise<[Did, Verkey]> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.takePooledDid(wh)
+  },
+
   keyForDid(poolHandle: PoolHandle, wh: WalletHandle, did: Did): Promise<Verkey> {
     if (Platform.OS === 'ios') {
       return IndySdk.keyForDid(did, poolHandle, wh)
@@ -342,6 +677,16 @@ const indy = {
     return IndySdk.keyForLocalDid(wh, did)
   },
 
+  /**
+   * Same as `keyForLocalDid` but resolves `null` instead of rejecting when the DID is not in the wallet.
+   */
+  async keyForLocalDidOrNull(wh: WalletHandle, did: Did): Promise<Verkey | null> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.keyForLocalDidOrNull(wh, did)
+  },
+
   storeTheirDid(wh: WalletHandle, identity: {}) {
     if (Platform.OS === 'ios') {
       return IndySdk.storeTheirDid(JSON.stringify(identity), wh)
@@ -356,6 +701,23 @@ const indy = {
     return IndySdk.listMyDidsWithMeta(wh)
   },
 
+  /**
+   * Lists DIDs `limit` at a time. Start with a null cursor and pass `nextCursor` until it's null. `changedSince` (ms)
+   * keeps DIDs created or with metadata set since then through this module, or whose JSON metadata has a
+   * `timestampField` member of at least that value, and DIDs of unknown modification time. `limit` must be at least 1.
+   */
+  async listMyDidsWithMetaPage(
+    wh: WalletHandle,
+    cursor: ?string,
+    limit: number,
+    options: { changedSince?: number, timestampField?: string } = {}
+  ): Promise<{ items: Array<Object>, nextCursor: ?string, total: number }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.listMyDidsWithMetaPage(wh, cursor, limit, JSON.stringify(options)))
+  },
+
   async setDidMetadata(wh, did, metadata) {
     if (Platform.OS === 'ios') {
       throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
@@ -363,6 +725,13 @@ const indy = {
     return IndySdk.setDidMetadata(wh, did, metadata)
   },
 
+  async getDidMetadata(wh: WalletHandle, did: Did): Promise<string> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.getDidMetadata(wh, did)
+  },
+
   // pairwise
 
   createPairwise(wh: WalletHandle, theirDid: Did, myDid: Did, metadata: string = ''): Promise<void> {
@@ -379,6 +748,55 @@ const indy = {
     return JSON.parse(await IndySdk.getPairwise(wh, theirDid))
   },
 
+  /**
+   * Sets the metadata of the pairwise and keeps the native pairwise caches in step with it.
+   */
+  setPairwiseMetadata(wh: WalletHandle, theirDid: Did, metadata: string): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setPairwiseMetadata(wh, theirDid, metadata)
+  },
+
+  /**
+   * Same as `getPairwise` but resolves `null` instead of rejecting when there is no pairwise for the DID.
+   */
+  async getPairwiseOrNull(wh: WalletHandle, theirDid: Did): Promise<Object | null> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    const pairwise = await IndySdk.getPairwiseOrNull(wh, theirDid)
+    return pairwise === null ? null : JSON.parse(pairwise)
+  },
+
+  // wallet caches
+
+  /**
+   * Sets the capacity of the write-through caches used by `getPairwise`, `keyForLocalDid`, `getDidMetadata` and
+   * `keyForDid`. Zero capacity disables caching. `keyForDid` entries expire after `keyForDidTtlMillis`, which must be
+   * positive.
+   */
+  async configureWalletCache(capacity: number, keyForDidTtlMillis: number = 300000): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.configureWalletCache(capacity, keyForDidTtlMillis)
+  },
+
+  async getWalletCacheStats(): Promise<{ [cache: string]: { hits: number, misses: number, hitRate: number, size: number } }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.getWalletCacheStats()
+  },
+
+  async resetWalletCacheStats(): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.resetWalletCacheStats()
+  },
+
   // crypto
 
   async createKey(wh: WalletHandle, key: Object): Promise<string> {
@@ -442,6 +860,38 @@ const indy = {
     return Buffer.from(await IndySdk.unpackMessage(wh, Array.from(jwe)))
   },
 
+  /**
+   * Unpacks a batch of packed messages natively. Messages from a pairwise sender key are stored as wallet records of
+   * `recordType`, others pass through. Emits one `IndySdkInboundMessage` event per message, see `onInboundMessage`.
+   */
+  async processInboundMessages(
+    wh: WalletHandle,
+    jwes: Array<Buffer>,
+    recordType: string
+  ): Promise<{ stored: number, passedThrough: number, failed: number }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.processInboundMessages(wh, jwes.map((jwe) => jwe.toString('utf8')), recordType))
+  },
+
+  onInboundMessage(
+    listener: (event: {
+      index: number,
+      recordId?: string,
+      theirDid?: Did,
+      type?: ?string,
+      senderVerkey?: ?Verkey,
+      message?: string,
+      error?: string,
+    }) => void
+  ): { remove: () => void } {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return DeviceEventEmitter.addListener('IndySdkInboundMessage', listener)
+  },
+
   // pool
 
   createPoolLedgerConfig(poolName: string, poolConfig: {}): Promise<void> {
@@ -469,6 +919,58 @@ const indy = {
     return IndySdk.closePoolLedger(ph)
   },
 
+  /**
+   * Starts opening the pool in the background and resolves at once. `openPoolLedger` and `submitRequestToPool`
+   * attach to the open in progress.
+   */
+  async prewarmPool(poolName: string, poolConfig: {} | undefined): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.prewarmPool(poolName, poolConfig === undefined ? null : JSON.stringify(poolConfig))
+  },
+
+  /**
+   * Refreshes the pool every `intervalMillis` while the app is in the foreground, 0 disables it.
+   */
+  async setPoolKeepAlive(poolName: string, intervalMillis: number): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setPoolKeepAlive(poolName, intervalMillis)
+  },
+
+  /**
+   * Orders pool nodes by reply latency, timed on every `sampleEvery`-th read submitted to the pool without sending
+   * extra requests. Measurements persist across launches and are applied as `preordered_nodes` and `number_read_nodes`
+   * on the next open. While a node has few or old measurements it is put first and read from alone for a session to
+   * time it. A node that timed out is put last and timed again after a backoff growing with every timeout.
+   * Measurements are saved at most every 30 seconds.
+   */
+  async setNodeLatencyOrdering(poolName: string, enabled: boolean, sampleEvery: number = 1): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setNodeLatencyOrdering(poolName, enabled, sampleEvery)
+  },
+
+  async getNodeLatencyStats(
+    poolName: string
+  ): Promise<?{ [node: string]: { averageMillis: number, samples: number, failures: number, lastSampleAt: number } }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    const stats = await IndySdk.getNodeLatencyStats(poolName)
+    return stats == null ? null : JSON.parse(stats)
+  },
+
+  async resetNodeLatencyStats(poolName: string): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.resetNodeLatencyStats(poolName)
+  },
+
   // ledger
 
   async submitRequest(poolHandle: PoolHandle, request: LedgerRequest): Promise<LedgerRequestResult> {
@@ -478,6 +980,62 @@ const indy = {
     return JSON.parse(await IndySdk.submitRequest(poolHandle, JSON.stringify(request)))
   },
 
+  /**
+   * Submits a request to the pool opened for `poolName`, waiting for an open in progress, e.g. from `prewarmPool`.
+   */
+  async submitRequestToPool(poolName: string, request: LedgerRequest): Promise<LedgerRequestResult> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.submitRequestToPool(poolName, JSON.stringify(request)))
+  },
+
+  /**
+   * Submits a request and resolves only part of the reply. `parse` applies the matching `parseGet*Response` natively,
+   * `fields` picks dot separated paths, e.g. `result.txnMetadata.seqNo`, and resolves an object keyed by path.
+   */
+  async submitRequestProjected(
+    poolHandle: PoolHandle,
+    request: LedgerRequest,
+    options: { parse?: string, fields?: Array<string> }
+  ): Promise<Object> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.submitRequestProjected(poolHandle, JSON.stringify(request), JSON.stringify(options)))
+  },
+
+  /**
+   * Appends every ledger request and reply, with its duration, to the JSON lines file at `path`. A failing write
+   * stops the recording without failing the ledger call.
+   */
+  startLedgerRecording(path: string): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.startLedgerRecording(path)
+  },
+
+  /**
+   * Answers ledger requests from the recording at `path` instead of the pool, delayed by the recorded duration times
+   * `timeScale`. Requests are matched without `reqId`, signatures and the dotted member paths in `ignoredMembers`,
+   * unrecorded requests are rejected. DIDs created without a seed and TAA acceptance times differ between runs: use
+   * fixed seeds or ignore them, e.g. `['operation.dest', 'taaAcceptance.time']`.
+   */
+  startLedgerReplay(path: string, timeScale: number = 1, ignoredMembers: Array<string> = []): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.startLedgerReplay(path, timeScale, ignoredMembers)
+  },
+
+  stopLedgerTraffic(): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.stopLedgerTraffic()
+  },
+
   async signRequest(wh: WalletHandle, submitterDid: Did, request: LedgerRequest): Promise<LedgerRequest> {
     if (Platform.OS === 'ios') {
       throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
@@ -662,6 +1220,69 @@ const indy = {
     return await IndySdk.proverDeleteCredential(wh, credId)
   },
 
+  /**
+   * Starts fetching deltas of tracked revocation registries in the background. Registries of credentials stored with
+   * a revocation registry are tracked automatically, `trackHeldRevocationRegistries` tracks those already held.
+   */
+  async startRevocationPrefetch(
+    poolHandle: PoolHandle,
+    options: {
+      intervalMillis?: number,
+      requireUnmetered?: boolean,
+      requireCharging?: boolean,
+      minBatteryLevel?: number,
+    } = {}
+  ): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.startRevocationPrefetch(poolHandle, JSON.stringify(options))
+  },
+
+  async stopRevocationPrefetch(): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.stopRevocationPrefetch()
+  },
+
+  async trackHeldRevocationRegistries(wh: WalletHandle): Promise<number> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.trackHeldRevocationRegistries(wh)
+  },
+
+  async trackRevocationRegistry(revRegDefId: RevRegId): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.trackRevocationRegistry(revRegDefId)
+  },
+
+  async untrackRevocationRegistry(revRegDefId: RevRegId): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.untrackRevocationRegistry(revRegDefId)
+  },
+
+  /**
+   * Prefetched delta from the registry start, shaped like the result of `parseGetRevocRegDeltaResponse`, or null when
+   * it was not fetched yet.
+   */
+  async getPrefetchedRevocationRegistryDelta(revRegDefId: RevRegId): Promise<?[RevRegId, RevocRegDelta, number]> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    const delta = await IndySdk.getPrefetchedRevocationRegistryDelta(revRegDefId)
+    if (delta == null) {
+      return null
+    }
+    const { id, json, timestamp } = JSON.parse(delta)
+    return [id, json, timestamp]
+  },
+
   // NOTE: This method is deprecated because immediately returns all fetched credentials. Use proverSearchCredentials() to fetch records by small batches.
   async proverGetCredentials(wh: WalletHandle, filter: {} = {}): Promise<Credential[]> {
     if (Platform.OS === 'ios') {
@@ -670,6 +1291,17 @@ const indy = {
     return JSON.parse(await IndySdk.proverGetCredentials(wh, JSON.stringify(filter)))
   },
 
+  /**
+   * Enables the in-memory index of stored credential metadata (ids, issuer and attribute names, no values).
+   * The index answers `proverGetCredentials` filters and skips proof request referents no credential can satisfy.
+   */
+  async setCredentialIndexEnabled(enabled: boolean): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setCredentialIndexEnabled(enabled)
+  },
+
   // TODO: add proverSearchCredentials() method
   // TODO: add proverFetchCredentials() method
   // TODO: add proverCloseCredentialsSearch() method
@@ -697,6 +1329,29 @@ const indy = {
     return JSON.parse(await IndySdk.proverFetchCredentialsForProofReq(sh, itemReferent, count))
   },
 
+  /**
+   * Opens a credentials search for the proof request, fetches up to `count` credentials for every attribute
+   * and predicate referent in one native call and closes the search again.
+   */
+  async proverFetchAllCredentialsForProofReq(
+    wh: WalletHandle,
+    proofRequest: ProofRequest,
+    extraQuery: {} | null,
+    count: number
+  ): Promise<{ [referent: string]: Object[] }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(
+      await IndySdk.proverFetchAllCredentialsForProofReq(
+        wh,
+        JSON.stringify(proofRequest),
+        JSON.stringify(extraQuery ?? {}),
+        count
+      )
+    )
+  },
+
   async proverCloseCredentialsSearchForProofReq(sh: number) {
     return await IndySdk.proverCloseCredentialsSearchForProofReq(sh)
   },
@@ -792,6 +1447,90 @@ const indy = {
     return JSON.parse(await IndySdk.buildGetTxnAuthorAgreementRequest(submitterDid, data))
   },
 
+  /**
+   * Builds, signs and submits a ledger write in one native call, e.g.
+   * `buildSignSubmit('NYM', { dest, verkey, role }, wh, submitterDid, poolHandle, taa)`.
+   * Params are the arguments of the matching build*Request in snake case, `taa` is null or the arguments of
+   * `appendTxnAuthorAgreementAcceptanceToRequest`. With null `taa` the cached agreement is accepted when
+   * auto-accept is enabled for the pool.
+   *
+   * Resolves `{ seqNo, txnTime, txnId, data }` of the written transaction. A REJECT or REQNACK reply rejects with
+   * an error named `IndyLedgerRejected` carrying `op` and `reason`.
+   */
+  async buildSignSubmit(
+    kind: 'NYM' | 'ATTRIB' | 'SCHEMA' | 'CRED_DEF' | 'REVOC_REG_DEF' | 'REVOC_REG_ENTRY',
+    params: {},
+    wh: WalletHandle,
+    submitterDid: Did,
+    poolHandle: PoolHandle,
+    taa: { text: string, version: string, taaDigest: string, mechanism: string, time: number } | null = null
+  ): Promise<{ seqNo: number, txnTime: number, txnId: ?string, data: {} }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(
+      await IndySdk.buildSignSubmit(kind, JSON.stringify(params), wh, submitterDid, poolHandle, taa && JSON.stringify(taa))
+    )
+  },
+
+  /**
+   * Builds and submits a ledger read and parses the reply natively. GET_SCHEMA, GET_CRED_DEF and the revocation
+   * kinds resolve `{ id, json, timestamp? }`, GET_NYM the parsed NYM data, other kinds the ledger reply. Rejected
+   * requests fail like in `buildSignSubmit`.
+   */
+  async buildSubmitRead(
+    kind:
+      | 'GET_NYM'
+      | 'GET_ATTRIB'
+      | 'GET_SCHEMA'
+      | 'GET_CRED_DEF'
+      | 'GET_REVOC_REG_DEF'
+      | 'GET_REVOC_REG'
+      | 'GET_REVOC_REG_DELTA'
+      | 'GET_TXN'
+      | 'GET_TXN_AUTHR_AGRMT',
+    params: {},
+    poolHandle: PoolHandle
+  ): Promise<Object> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.buildSubmitRead(kind, JSON.stringify(params), poolHandle))
+  },
+
+  /**
+   * Active transaction author agreement and acceptance mechanisms of the pool, cached natively. `taa` is null when
+   * the pool has no agreement.
+   */
+  async getTxnAuthorAgreement(poolHandle: PoolHandle, forceRefresh: boolean = false): Promise<{ taa: ?{}, aml: ?{} }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.getTxnAuthorAgreement(poolHandle, forceRefresh))
+  },
+
+  /**
+   * Accepts the active agreement with `mechanism` on writes sent with `buildSignSubmit` to the pool. Null mechanism
+   * disables it. `time` is the acceptance time in seconds, 0 for the start of the current day (UTC). With 0 writes
+   * fail on the day the agreement was ratified, libindy keeps the acceptance time with day precision only.
+   *
+   * Only `buildSignSubmit` attaches the acceptance. Requests sent with `submitRequest` or `signAndSubmitRequest`
+   * need `appendTxnAuthorAgreementAcceptanceToRequest`.
+   */
+  async setTxnAuthorAgreementAutoAccept(poolHandle: PoolHandle, mechanism: ?string, time: number = 0): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setTxnAuthorAgreementAutoAccept(poolHandle, mechanism, time)
+  },
+
+  async setTxnAuthorAgreementRefreshInterval(refreshIntervalMillis: number): Promise<void> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return IndySdk.setTxnAuthorAgreementRefreshInterval(refreshIntervalMillis)
+  },
+
   // non_secrets
 
   async addWalletRecord(wh: WalletHandle, type: string, id: string, value: string, tags: {}): Promise<void> {
@@ -818,10 +1557,46 @@ const indy = {
     return IndySdk.deleteWalletRecord(wh, type, id)
   },
 
+  /**
+   * Runs the operations one after another on the native side without returning to JS in between.
+   * Failed operations are reported in the results, the batch stops at the first failure only if `stopOnError` is set.
+   */
+  async batchWalletRecordOperations(
+    wh: WalletHandle,
+    operations: WalletRecordOperation[],
+    stopOnError: boolean = false
+  ): Promise<WalletRecordBatchResult> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.batchWalletRecordOperations(wh, JSON.stringify(operations), stopOnError))
+  },
+
   async getWalletRecord(wh: WalletHandle, type: string, id: string, options: {}): Promise<WalletRecord> {
     return JSON.parse(await IndySdk.getWalletRecord(wh, type, id, JSON.stringify(options)))
   },
 
+  /**
+   * Same as `getWalletRecord` but resolves `null` instead of rejecting when the record doesn't exist.
+   */
+  async getWalletRecordOrNull(wh: WalletHandle, type: string, id: string, options: {}): Promise<WalletRecord | null> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    const record = await IndySdk.getWalletRecordOrNull(wh, type, id, JSON.stringify(options))
+    return record === null ? null : JSON.parse(record)
+  },
+
+  /**
+   * Fetches records by id in one native call. Ids missing in the wallet come back as `null`.
+   */
+  async getWalletRecords(wh: WalletHandle, type: string, ids: string[], options: {}): Promise<Array<WalletRecord | null>> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.getWalletRecords(wh, type, ids, JSON.stringify(options)))
+  },
+
   async openWalletSearch(wh: WalletHandle, type: string, query: {}, options: {}): Promise<number> {
     return IndySdk.openWalletSearch(wh, type, JSON.stringify(query), JSON.stringify(options))
   },
@@ -898,6 +1673,39 @@ const indy = {
     return [JSON.parse(credJson), revocId, JSON.parse(revocRegDelta)]
   },
 
+  /**
+   * Issues credentials for many holders concurrently. Items of the same revocation registry are issued one after
+   * another so registry indexes stay unique. Results are in item order. `closeWallet` waits until the batch ended.
+   */
+  async issuerCreateCredentials(
+    wh: WalletHandle,
+    items: Array<{
+      credOffer: CredOffer,
+      credReq: CredReq,
+      credValues: CredValues,
+      revRegId?: ?RevRegId,
+      blobStorageReaderHandle?: BlobReaderHandle,
+    }>,
+    revRegId: ?RevRegId = null,
+    blobStorageReaderHandle: BlobReaderHandle = 0
+  ): Promise<{
+    results: Array<{
+      ok: boolean,
+      credential?: Credential,
+      revocId?: ?CredRevocId,
+      revocRegDelta?: ?RevocRegDelta,
+      error?: Object,
+      durationMs: number,
+    }>,
+    failed: number,
+    totalMs: number,
+  }> {
+    if (Platform.OS === 'ios') {
+      throw new Error(`Unsupported operation! Platform: ${Platform.OS}`)
+    }
+    return JSON.parse(await IndySdk.issuerCreateCredentials(wh, JSON.stringify(items), revRegId, blobStorageReaderHandle))
+  },
+
   async createRevocationState(
     blobStorageReaderHandle: BlobReaderHandle,
     revRegDef: RevocRegDef,